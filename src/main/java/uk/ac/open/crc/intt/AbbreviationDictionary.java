@@ -19,8 +19,9 @@
 package uk.ac.open.crc.intt;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.function.Consumer;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * A dictionary of abbreviations. 
@@ -28,7 +29,7 @@ import java.util.List;
  */
 class AbbreviationDictionary implements Dictionary {
 
-    private HashSet<String> abbreviationSet;
+    private final StaticWordSet abbreviationSet;
 
     String name = "abbr";
 
@@ -38,10 +39,7 @@ class AbbreviationDictionary implements Dictionary {
      * @param abbreviations a list of abbreviations 
      */
     public AbbreviationDictionary( List<String> abbreviations ) {
-        this.abbreviationSet = new HashSet<>( abbreviations.size() );
-        abbreviations.stream().forEach( ( abbreviation ) -> {
-            this.abbreviationSet.add( abbreviation.toLowerCase() );
-        });
+        this.abbreviationSet = new StaticWordSet( abbreviations );
     }
 
     /**
@@ -65,8 +63,18 @@ class AbbreviationDictionary implements Dictionary {
      *
      */
     @Override
-    public synchronized boolean isWord( String s ) {
-        return abbreviationSet.contains( s.toLowerCase() );
+    public boolean isWord( String s ) {
+        return abbreviationSet.contains( s );
+    }
+
+    @Override
+    public boolean isWord( CharSequence text, int start, int end ) {
+        return abbreviationSet.contains( text, start, end );
+    }
+
+    @Override
+    public void forEachWord( Consumer<? super String> action ) {
+        this.abbreviationSet.forEach( action );
     }
 
     @Override
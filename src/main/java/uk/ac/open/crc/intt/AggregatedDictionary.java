@@ -17,19 +17,44 @@
 
 package uk.ac.open.crc.intt;
 
-import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import uk.ac.open.crc.intt.text.WordSet;
+import uk.ac.open.crc.intt.text.WordStatistics;
 
 /**
  * An aggregation of individual dictionaries that behaves as a single
  * dictionary. Provides a convenient means to identify known terms.
  *
+ * <p>
+ * The dictionaries are held in an immutable {@link DictionaryBundle}. 
+ * Lookups read the current bundle once and take no locks. Changing the
+ * dictionaries or the lookup filter builds a new bundle to the side and 
+ * then publishes it in a single write, so a lookup sees either the old 
+ * dictionaries or the new ones, never a mixture. Callers that make 
+ * several lookups that must agree, such as the tokenisation of one name,
+ * should retrieve the {@link #bundle()} once and use it throughout.
+ * </p>
+ *
  */
 class AggregatedDictionary implements Dictionary {
 
-    private Dictionary abbreviations;
-    private Dictionary digitAbbreviations;
-    private Dictionary words;
+    private volatile DictionaryBundle bundle;
+
+    // settings of the lookup filter, guarded by the lock on this
+    private double falsePositiveRate = 0;
+    private long maximumBytes = 0;
+
+    // words added and removed since the dictionaries were built, null 
+    // when there have been no updates
+    private DictionaryOverlay overlay = null;
+
+    // words removed by updates that have been compacted and are still in 
+    // one of the dictionaries, null when there are none; the set is 
+    // replaced, not modified, once published
+    private WordSet exclusions = null;
 
     /**
      * Creates an aggregate of the supplied dictionaries.
@@ -41,20 +66,172 @@ class AggregatedDictionary implements Dictionary {
     AggregatedDictionary ( AbbreviationDictionary abbreviationDictionary,
             DigitAbbreviationDictionary digitAbbreviationDictionary,
             MainDictionary mainDictionary ) {
-        this.abbreviations = abbreviationDictionary;
-        this.digitAbbreviations = digitAbbreviationDictionary;
-        this.words = mainDictionary;
+        this.bundle = new DictionaryBundle( 1, 
+                abbreviationDictionary, 
+                digitAbbreviationDictionary, 
+                mainDictionary, 
+                null, 
+                null, 
+                0, 
+                0, 
+                null, 
+                null );
     }
 
     /**
-     * Changes the set of dictionaries used to the supplied set.
+     * Changes the set of dictionaries used to the supplied set, publishing
+     * a new bundle once it is complete. The exclusions made by compacted
+     * updates are discarded if the main dictionary is replaced.
      *
      * @param dictionarySet a set of dictionaries
      */
-    void changeDictionaries ( DictionarySet dictionarySet ) {
-        this.abbreviations = dictionarySet.getAbbreviationDictionary();
-        this.digitAbbreviations = dictionarySet.getDigitAbbreviationDictionary();
-        this.words = dictionarySet.getMainDictionary();
+    synchronized void changeDictionaries ( DictionarySet dictionarySet ) {
+        if ( dictionarySet.getMainDictionary() != this.bundle.getMainDictionary() ) {
+            this.exclusions = null;
+        }
+        publish( dictionarySet );
+    }
+
+    private void publish ( DictionarySet dictionarySet ) {
+        DictionaryBundle current = this.bundle;
+        if ( current.getAbbreviationDictionary() == dictionarySet.getAbbreviationDictionary()
+                && current.getDigitAbbreviationDictionary() 
+                    == dictionarySet.getDigitAbbreviationDictionary()
+                && current.getMainDictionary() == dictionarySet.getMainDictionary() ) {
+            // only the affixes have changed, so the statistics and filter
+            // are kept
+            this.bundle = current.withAffixes( 
+                    dictionarySet.getPrefixDictionary(), 
+                    dictionarySet.getSuffixDictionary() );
+            return;
+        }
+        this.bundle = new DictionaryBundle( current.version() + 1, 
+                dictionarySet.getAbbreviationDictionary(), 
+                dictionarySet.getDigitAbbreviationDictionary(), 
+                dictionarySet.getMainDictionary(), 
+                dictionarySet.getPrefixDictionary(), 
+                dictionarySet.getSuffixDictionary(), 
+                this.falsePositiveRate, 
+                this.maximumBytes, 
+                this.overlay, 
+                this.exclusions );
+    }
+
+    /**
+     * Adds and removes words, publishing a bundle with the changes in its
+     * overlay. The dictionaries themselves are unchanged, so this takes 
+     * time in proportion to the number of updates held.
+     *
+     * @param additions words to add
+     * @param removals words to remove
+     * @return the number of additions and removals held in the overlay
+     */
+    synchronized int update ( Collection<String> additions, Collection<String> removals ) {
+        this.overlay = ( this.overlay == null ? new DictionaryOverlay() : this.overlay )
+                .update( additions, removals );
+        this.bundle = this.bundle.withOverlay( this.overlay );
+        return this.overlay.additionCount() + this.overlay.removalCount();
+    }
+
+    /**
+     * Retrieves the updates held.
+     *
+     * @return the overlay, or {@code null} if there have been no updates
+     */
+    synchronized DictionaryOverlay overlay () {
+        return this.overlay;
+    }
+
+    /**
+     * Publishes a bundle of the dictionaries in which the compacted 
+     * additions are part of the main dictionary and the compacted removals
+     * are held in a set of exclusions, rather than in the overlay. Updates 
+     * made since the additions and removals were taken from the overlay 
+     * are retained. Exclusions of words that are no longer in any of the 
+     * dictionaries are dropped, so the set holds only the removed words
+     * the dictionaries still contain.
+     *
+     * @param dictionarySet a set of dictionaries, including the compacted
+     * main dictionary
+     * @param additions the additions moved into the main dictionary
+     * @param removals the removals moved into the exclusions
+     */
+    synchronized void compact ( DictionarySet dictionarySet, 
+            List<String> additions, List<String> removals ) {
+        // a word excluded earlier and added since is no longer excluded
+        WordSet added = new WordSet( additions );
+        WordSet compacted = new WordSet();
+        Consumer<String> exclude = word -> {
+            if ( ! added.contains( word ) && isInDictionaries( dictionarySet, word ) ) {
+                compacted.add( word );
+            }
+        };
+        removals.forEach( exclude );
+        if ( this.exclusions != null ) {
+            this.exclusions.forEach( exclude );
+        }
+        this.exclusions = compacted.isEmpty() ? null : compacted;
+        this.overlay = this.overlay.withoutUpdates( additions, removals );
+        if ( this.overlay.additionCount() == 0 && this.overlay.removalCount() == 0 ) {
+            this.overlay = null;
+        }
+        publish( dictionarySet );
+    }
+
+    private static boolean isInDictionaries ( DictionarySet dictionarySet, String word ) {
+        return dictionarySet.getMainDictionary().isWord( word )
+                || dictionarySet.getAbbreviationDictionary().isWord( word )
+                || dictionarySet.getDigitAbbreviationDictionary().isWord( word );
+    }
+
+    /**
+     * Retrieves the current version of the dictionaries.
+     *
+     * @return the current bundle
+     */
+    DictionaryBundle bundle () {
+        return this.bundle;
+    }
+
+    /**
+     * Provides the statistics of the entries in the dictionaries, which 
+     * identify ranges that cannot be words without looking them up.
+     *
+     * @return the statistics of the dictionaries' entries
+     */
+    WordStatistics statistics () {
+        return this.bundle.statistics();
+    }
+
+    /**
+     * Reports the length of the longest entry in the dictionaries.
+     *
+     * @return the length of the longest word
+     */
+    int maximumWordLength () {
+        return this.bundle.maximumWordLength();
+    }
+
+    /**
+     * Places a Bloom filter over the entries of the dictionaries in front 
+     * of the lookups, so that most unknown words are rejected with a single
+     * memory access. The filter is rebuilt when the dictionaries change.
+     *
+     * @param falsePositiveRate the desired false positive rate of the filter
+     * @param maximumBytes the most memory the filter may use
+     */
+    synchronized void setLookupFilter ( double falsePositiveRate, long maximumBytes ) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.maximumBytes = maximumBytes;
+        this.bundle = this.bundle.withLookupFilter( falsePositiveRate, maximumBytes );
+    }
+
+    /**
+     * Removes the Bloom filter from the lookups.
+     */
+    synchronized void setLookupFilterOff () {
+        this.falsePositiveRate = 0;
+        this.bundle = this.bundle.withLookupFilter( 0, 0 );
     }
 
     /**
@@ -65,19 +242,28 @@ class AggregatedDictionary implements Dictionary {
      * @return {@code true} if the word is found in any of the dictionaries.
      */
     @Override
-    public synchronized boolean isWord ( String token ) {
-        return ( this.words.isWord( token )
-                || this.abbreviations.isWord( token )
-                || this.digitAbbreviations.isWord( token ) );
+    public boolean isWord ( String token ) {
+        return this.bundle.isWord( token );
+    }
+
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        return this.bundle.isWord( text, start, end );
+    }
+
+    @Override
+    public int markKnown( List<String> tokens, BitSet known ) {
+        return this.bundle.markKnown( tokens, known );
+    }
+
+    @Override
+    public void forEachWord( Consumer<? super String> action ) {
+        this.bundle.forEachWord( action );
     }
 
     @Override
     public List<String> tags( String word ) {
-        List<String> tags = new ArrayList<>();
-        tags.addAll( this.abbreviations.tags(word) );
-        tags.addAll( this.digitAbbreviations.tags(word) );
-        tags.addAll( this.words.tags(word) );
-        return tags;
+        return this.bundle.tags( word );
     }
     
     
@@ -90,8 +276,8 @@ class AggregatedDictionary implements Dictionary {
      *
      * @return {@code true} if all the tokens are recognised.
      */
-    public synchronized boolean isAllKnownWords ( List<String> tokens ) {
-        return tokens.stream().allMatch( (token) -> { return isWord( token ); } );
+    public boolean isAllKnownWords ( List<String> tokens ) {
+        return this.bundle.isAllKnownWords( tokens );
     }
 
     /**
@@ -101,22 +287,8 @@ class AggregatedDictionary implements Dictionary {
      * @param tokens a {@code List} of tokens
      * @return the percentage as an integer of tokens found in the dictionary
      */
-    public synchronized int percentageKnown ( List<String> tokens ) {
-        int knownCount = 0;
-
-        // explore functional alternatives
-        for ( String token : tokens ) {
-            if ( this.isWord( token ) == true ) {
-                knownCount++;
-            }
-        }
-        
-//        long knownCount = tokens
-//            .stream()
-//            .filter(t -> this.isWord( t ))
-//            .count();
-
-        return (int) ( 100 * knownCount / tokens.size() );
+    public int percentageKnown ( List<String> tokens ) {
+        return this.bundle.percentageKnown( tokens );
     }
 
     
@@ -17,14 +17,6 @@
 
 package uk.ac.open.crc.intt;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,12 +24,17 @@ import org.slf4j.LoggerFactory;
  * Utility class that manages the splitting of identifier names to tokens of
  * a single case.
  *
+ * <p>
+ * Tokens are recorded as ranges of the name in a {@code SpanBuffer} so 
+ * that names without digits are tokenised without creating any strings.
+ * Instances reuse an internal buffer and are not thread safe.
+ * </p>
+ *
  */
 class BasicTokeniser {
+    private static final Logger LOGGER = LoggerFactory.getLogger( BasicTokeniser.class );
 
-    private final ArrayList<String> words;
-
-    private final AggregatedDictionary aggregatedDictionary;
+    private final DictionaryBundle dictionaries;
 
     private final DigitAbbreviationDictionary digitAbbreviationDictionary;
 
@@ -45,155 +42,146 @@ class BasicTokeniser {
 
     private final NumericTokeniser numericTokeniser;
 
-    private final HashSet<String> separatorCharactersSet;
-
-    private static final Pattern lcUcPattern;
-    private static final Pattern ucLcPattern;
-    private static final Set<String> escapableCharacters;
-    
-    static {
-	lcUcPattern = Pattern.compile("\\p{Ll}\\p{Lu}");
-	ucLcPattern = Pattern.compile("\\p{Lu}\\p{Ll}");
-        escapableCharacters = new HashSet<>();
-        Collections.addAll(escapableCharacters, "<", "(", "[", "{", "\\", "^", "-", "=", "$", "!", "|", "]", "}", ")", "?", "*", "+", ".", ">");
-    }
+    private final String separatorCharacters;
 
-    private static final Logger LOGGER = LoggerFactory.getLogger( BasicTokeniser.class );
-    
-    private final Pattern separatorPattern;
+    private final SpanBuffer splits;
     
     /**
-     * Creates an instance using a set of dictionaries and a set of 
+     * Creates an instance using a version of the dictionaries and a set of 
      * separator characters.
-     * @param dictionarySet a set of dictionaries
+     * @param dictionaries a version of the dictionaries
      * @param separatorCharacters a set of separator characters
      */
-    BasicTokeniser ( DictionarySet dictionarySet, String separatorCharacters ) {
-        this.words = new ArrayList<>();
-        this.aggregatedDictionary = dictionarySet.getAggregatedDictionary();
-        this.numericTokeniser = new NumericTokeniser( dictionarySet );
-        this.digitAbbreviationDictionary = dictionarySet.getDigitAbbreviationDictionary();
-        this.abbreviationDicitonary = dictionarySet.getAbbreviationDictionary();
+    BasicTokeniser ( DictionaryBundle dictionaries, String separatorCharacters ) {
+        this.dictionaries = dictionaries;
+        this.numericTokeniser = new NumericTokeniser( dictionaries );
+        this.digitAbbreviationDictionary = dictionaries.getDigitAbbreviationDictionary();
+        this.abbreviationDicitonary = dictionaries.getAbbreviationDictionary();
 
-        this.separatorCharactersSet = new HashSet<>();
-        List<String> chars = new ArrayList<>();
         if ( separatorCharacters.isEmpty() ) {
             separatorCharacters = "_$";  // default to Java
         }
-        for ( Integer index = 0; index < separatorCharacters.length(); index++ ) {
-            String character = separatorCharacters.substring(index, index+1);
-            if ( escapableCharacters.contains(character) ) {
-                separatorCharactersSet.add(String.format("\\%s", character));
-            }
-            else {
-                separatorCharactersSet.add( character );
-            }
-        }
-        this.separatorPattern = Pattern.compile(separatorCharactersSet.stream()
-						.collect(Collectors.joining("", "[", "]+")));
+        this.separatorCharacters = separatorCharacters;
+        this.splits = new SpanBuffer();
     }
 
 
     /**
-     * Undertakes conservative tokenisation of a string.
-     * @param identifierName a name to tokenise
-     * @return a list of naive tokens
+     * Creates an instance without dictionaries that can only be used for 
+     * naive tokenisation.
+     * @param separatorCharacters a set of separator characters
      */
-    List<String> naiveTokensation ( String identifierName ) {
-        List<String> tokens = tokeniseOnSeparators( identifierName );
-
-        List<String> naiveTokens = tokeniseOnLowercaseToUppercase( tokens );
+    BasicTokeniser ( String separatorCharacters ) {
+        this.dictionaries = null;
+        this.numericTokeniser = null;
+        this.digitAbbreviationDictionary = null;
+        this.abbreviationDicitonary = null;
 
-        return naiveTokens;
+        if ( separatorCharacters.isEmpty() ) {
+            separatorCharacters = "_$";  // default to Java
+        }
+        this.separatorCharacters = separatorCharacters;
+        this.splits = new SpanBuffer();
     }
 
     /**
-     * Tokenises a name aggressively according to the library configuration.
+     * Undertakes conservative tokenisation of a name, splitting on 
+     * separator characters and LCUC boundaries, and records the boundaries
+     * of each token.
      * @param identifierName a name to tokenise
-     * @return a list of tokens
+     * @param tokens a buffer to which the naive tokens are added
      */
-    List<String> tokenise ( String identifierName ) {
-        List<String> splits = tokeniseOnSeparators( identifierName );
-
-        splits = tokeniseOnLowercaseToUppercase( splits );
-
-        ArrayList<String> tokens = new ArrayList<>();
-        for ( String split : splits ) {
-            if ( split.matches( "^.*[0-9]+.*$" ) ) {
-                tokens.addAll( tokeniseOnUppercaseToLowercase( this.numericTokeniser.tokenise( split, identifierName.endsWith( split ) ) ) );
+    void naiveTokenisation ( CharSequence identifierName, SpanBuffer tokens ) {
+        int start = -1;
+        int previous = -1;
+        for ( int index = 0; index < identifierName.length(); ) {
+            int codePoint = Character.codePointAt( identifierName, index );
+            if ( this.separatorCharacters.indexOf( codePoint ) >= 0 ) {
+                if ( start >= 0 ) {
+                    tokens.add( identifierName, start, index );
+                    start = -1;
+                }
             }
-            else {
-                tokens.addAll( tokeniseOnUppercaseToLowercase( split ) );
+            else if ( start < 0 ) {
+                start = index;
             }
+            else if ( Character.getType( previous ) == Character.LOWERCASE_LETTER
+                    && Character.getType( codePoint ) == Character.UPPERCASE_LETTER ) {
+                tokens.add( identifierName, start, index );
+                start = index;
+            }
+            previous = codePoint;
+            index += Character.charCount( codePoint );
+        }
+        if ( start >= 0 ) {
+            tokens.add( identifierName, start, identifierName.length() );
         }
-
-        return tokens;
-    }
-
-
-    private List<String> tokeniseOnSeparators( String name ) {
-        List<String> splits = this.separatorPattern.splitAsStream(name)
-	    .filter(s -> s.length() > 0)
-	    .collect(Collectors.toList());
-
-        return splits;
-    }
-
-    /**
-     * Provides a naive camel case splitter to work on character only strings.
-     *
-     * @param identifierName a character only string
-     * @return an Array list of components of the input string that result
-     * from splitting on LCUC boundaries.
-     */
-    private ArrayList<String> tokeniseOnLowercaseToUppercase ( String identifierName ) {
-	ArrayList<String> splits = new ArrayList<>();
-        Matcher matcher = lcUcPattern.matcher(identifierName);
-	int start = 0;
-	while ( matcher.find() ) {
-	    splits.add(identifierName.substring(start, matcher.end() - 1));
-	    start = matcher.end() - 1;
-	}
-	splits.add(identifierName.substring(start, identifierName.length()));
-
-	return splits;
     }
 
- 
     /**
-     * Wraps the single argument version of the method.
-     *
-     * @param tokens
-     * @return
+     * Tokenises a name aggressively according to the library configuration
+     * and records the boundaries of each token.
+     * @param identifierName a name to tokenise
+     * @param tokens a buffer to which the tokens are added
      */
-    private List<String> tokeniseOnLowercaseToUppercase ( List<String> tokens ) {
-        ArrayList<String> splits = new ArrayList<>();
-
-        tokens.stream().forEach( (token) -> {
-		splits.addAll( tokeniseOnLowercaseToUppercase( token ) ); 
-        } );
-
-        return splits;
+    void tokenise ( CharSequence identifierName, SpanBuffer tokens ) {
+        this.splits.clear();
+        naiveTokenisation( identifierName, this.splits );
+
+        for ( int i = 0; i < this.splits.size(); i++ ) {
+            int start = this.splits.start( i );
+            int end = this.splits.end( i );
+            if ( containsDigit( identifierName, start, end ) ) {
+                // the numeric tokeniser works on strings, but its tokens
+                // are consecutive substrings of the split
+                String split = this.splits.token( i );
+                int position = start;
+                for ( String token : this.numericTokeniser.tokenise( 
+                        split, endsWith( identifierName, start, end ) ) ) {
+                    int tokenStart = indexOf( identifierName, token, position, end );
+                    if ( tokenStart < 0 ) {
+                        // the tokens must be ranges of the name, so the 
+                        // rest of the split is kept whole
+                        LOGGER.warn( "Numeric token \"{}\" is not a substring of \"{}\"", 
+                                token, split );
+                        if ( position < end ) {
+                            tokeniseOnUppercaseToLowercase( 
+                                    identifierName, position, end, tokens );
+                        }
+                        break;
+                    }
+                    position = tokenStart + token.length();
+                    tokeniseOnUppercaseToLowercase( 
+                            identifierName, tokenStart, position, tokens );
+                }
+            }
+            else {
+                tokeniseOnUppercaseToLowercase( identifierName, start, end, tokens );
+            }
+        }
+        this.splits.clear();
     }
 
-    private ArrayList<String> tokeniseOnUppercaseToLowercase ( String fragment ) {
-        ArrayList<String> splits = new ArrayList<>();
-
+    private void tokeniseOnUppercaseToLowercase ( 
+            CharSequence text, 
+            int start, 
+            int end, 
+            SpanBuffer splits ) {
         // the input fragment has been split at separators and lc/uc boundaries
         // so will be single case, contain a digit, or a UC/LC boundary
         // we examine UC/LC only
         // consider performing a simple sanity check to ensure that
         // we are not dealing with an unconventionally capitalised
         // abbreviation such as OSGi or a known digit abbreviation such as IPv6.
-        if ( this.digitAbbreviationDictionary.isWord( fragment )
-                || this.abbreviationDicitonary.isWord( fragment ) ) {
-            splits.add( fragment );
+        if ( this.digitAbbreviationDictionary.isWord( text, start, end )
+                || this.abbreviationDicitonary.isWord( text, start, end ) ) {
+            splits.add( text, start, end );
         }
         else {
 
-            Integer boundary = getUcLcBoundary( fragment );
-            if ( boundary == -1 || boundary == 0 ) {
-                splits.add( fragment );
+            int boundary = getUcLcBoundary( text, start, end );
+            if ( boundary == -1 || boundary == start ) {
+                splits.add( text, start, end );
             }
             // checking boundary == 0 is overly fussy, and probably unnecessary
             else {
@@ -201,57 +189,127 @@ class BasicTokeniser {
                 // !!unless there are digits in there!!
                 // so we need to choose between the camel case split
                 // and the alternating case split where there are no digits
-                List<String> camelSplits = new ArrayList<>();
-                camelSplits.add( fragment.substring( 0, boundary ) );
-                camelSplits.add( fragment.substring( boundary ) );
-                List<String> alternateSplits = new ArrayList<>();
-                alternateSplits.add( fragment.substring( 0, boundary + 1 ) );
-                alternateSplits.add( fragment.substring( boundary + 1 ) );
-
-                if ( this.aggregatedDictionary.percentageKnown( camelSplits )
-                        >= this.aggregatedDictionary.percentageKnown( alternateSplits ) ) {
-                    splits.addAll( camelSplits );
+                // both candidates are scored in place
+                if ( knownCount( text, start, boundary, end )
+                        >= knownCount( text, start, boundary + 1, end ) ) {
+                    splits.add( text, start, boundary );
+                    splits.add( text, boundary, end );
                 }
                 else {
-                    splits.addAll( alternateSplits );
+                    splits.add( text, start, boundary + 1 );
+                    splits.add( text, boundary + 1, end );
                 }
             }
         }
-
-        return splits;
     }
 
     /**
-     * Wraps the single argument version of the method.
+     * Counts the known words either side of a split point in a fragment.
      *
-     * @param tokens a {@code List} of tokens
+     * @param text a sequence containing the fragment
+     * @param start the index of the first character of the fragment
+     * @param split the index of the first character of the second word
+     * @param end the index following the last character of the fragment
      *
-     * @return a {@code List} of tokens where any tokens previously
-     * containing UCLC boundaries have been split
+     * @return the number of the two words found in the dictionary
      */
-    List<String> tokeniseOnUppercaseToLowercase ( ArrayList<String> tokens ) {
-        List<String> splits = new ArrayList<>();
-
-        tokens.stream().forEach( (token) -> {
-            splits.addAll( tokeniseOnUppercaseToLowercase( token ) );
-        } );
-
-        return splits;
+    private int knownCount ( CharSequence text, int start, int split, int end ) {
+        int count = 0;
+        if ( this.dictionaries.isWord( text, start, split ) ) {
+            count++;
+        }
+        if ( this.dictionaries.isWord( text, split, end ) ) {
+            count++;
+        }
+        return count;
     }
 
     /**
-     * Locates a UCLC boundary (there is only one in the string) and reports
-     * the position of the UC character.
+     * Locates a UCLC boundary (there is only one in the fragment) and 
+     * reports the position of the UC character.
      *
-     * @param token a String that contains at most one UCLC boundary
+     * @param text a sequence containing a fragment that contains at most one
+     * UCLC boundary
+     * @param start the index of the first character of the fragment
+     * @param end the index following the last character of the fragment
      *
      * @return The integer position of the upper case character of a UCLC case
      * change. Or -1 if no UCLC boundary is found.
      */
-    private Integer getUcLcBoundary ( String token ) {
+    private int getUcLcBoundary ( CharSequence text, int start, int end ) {
+        for ( int index = start; index < end; ) {
+            int codePoint = Character.codePointAt( text, index );
+            int next = index + Character.charCount( codePoint );
+            if ( next < end 
+                    && Character.getType( codePoint ) == Character.UPPERCASE_LETTER
+                    && Character.getType( Character.codePointAt( text, next ) ) 
+                        == Character.LOWERCASE_LETTER ) {
+                return index;
+            }
+            index = next;
+        }
+        return -1;
+    }
+
+    /**
+     * Indicates whether a range of characters contains one of the digits
+     * 0-9.
+     *
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     *
+     * @return {@code true} if the range contains a digit
+     */
+    static boolean containsDigit ( CharSequence text, int start, int end ) {
+        for ( int i = start; i < end; i++ ) {
+            char c = text.charAt( i );
+            if ( c >= '0' && c <= '9' ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Locates a token within a range of characters. Tokens produced by
+     * splitting a range normally begin at the position given.
+     *
+     * @param text a character sequence
+     * @param token a token expected to occur in the range
+     * @param from the index to start searching from
+     * @param end the index following the last character of the range
+     *
+     * @return the index of the first character of the token, or -1 if the
+     * token is not found in the range
+     */
+    static int indexOf ( CharSequence text, String token, int from, int end ) {
+        for ( int index = from; index + token.length() <= end; index++ ) {
+            if ( regionMatches( text, index, token, 0, token.length() ) ) {
+                return index;
+            }
+        }
+        return -1;
+    }
 
-        Matcher matcher = ucLcPattern.matcher( token );
+    // true if the name ends with the characters in the range, which is 
+    // not necessarily the final range of the name
+    private static boolean endsWith ( CharSequence text, int start, int end ) {
+        int length = end - start;
+        return regionMatches( text, text.length() - length, text, start, length );
+    }
 
-	return  matcher.find() ? matcher.start() : -1;
+    private static boolean regionMatches ( 
+            CharSequence text, 
+            int offset, 
+            CharSequence other, 
+            int otherOffset, 
+            int length ) {
+        for ( int i = 0; i < length; i++ ) {
+            if ( text.charAt( offset + i ) != other.charAt( otherOffset + i ) ) {
+                return false;
+            }
+        }
+        return true;
     }
 }
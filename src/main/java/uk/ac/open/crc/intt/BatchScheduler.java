@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the names of a batch across the threads of a fork join pool 
+ * according to an estimate of the cost of tokenising each name.
+ * The cost of tokenisation is very uneven: names made of short words
+ * separated by case changes are cheap, while a long single case run is
+ * searched by the single case splitter and may cost thousands of times
+ * more.
+ *
+ * <p>
+ * Names are sorted by estimated cost, most expensive first, and the
+ * sorted batch is divided recursively into tasks of roughly equal cost,
+ * so the expensive names become tasks of their own and the cheap names
+ * are grouped. Idle threads steal tasks from busy ones, and a batch is
+ * not left waiting on one thread that happened to receive a run of
+ * expensive names.
+ * </p>
+ */
+final class BatchScheduler {
+    // the number of tasks aimed for on each thread, to leave enough
+    // tasks to steal when the estimates are wrong
+    private static final int TASKS_PER_THREAD = 16;
+
+    private static final int DIGIT_COST = 4;
+
+    // runs no longer than this are looked up whole rather than split
+    private static final int SHORT_RUN = 3;
+
+    private BatchScheduler() {
+        // static methods only
+    }
+
+    /**
+     * Estimates the relative cost of tokenising a name from its shape.
+     * The runs of letters that the basic tokeniser would leave whole are
+     * costed by the square of their length, as the single case splitter
+     * tests each substring of a run, and each digit adds a small cost for
+     * the search for digit abbreviations.
+     * @param name an identifier name
+     * @return an estimate of the cost, at least 1
+     */
+    static long estimateCost( CharSequence name ) {
+        long cost = 1;
+        int run = 0;
+        char previous = 0;
+        char beforePrevious = 0;
+        for ( int i = 0; i < name.length(); i++ ) {
+            char c = name.charAt( i );
+            if ( Character.isLetter( c ) ) {
+                if ( Character.isUpperCase( c ) && Character.isLowerCase( previous ) ) {
+                    cost += runCost( run );
+                    run = 0;
+                }
+                else if ( Character.isLowerCase( c )
+                        && Character.isUpperCase( previous )
+                        && Character.isUpperCase( beforePrevious ) ) {
+                    // the last upper case letter begins the next word, as
+                    // in HTMLEditor
+                    cost += runCost( run - 1 );
+                    run = 1;
+                }
+                run++;
+            }
+            else {
+                cost += runCost( run );
+                run = 0;
+                if ( Character.isDigit( c ) ) {
+                    cost += DIGIT_COST;
+                }
+            }
+            beforePrevious = previous;
+            previous = c;
+        }
+        return cost + runCost( run );
+    }
+
+    private static long runCost( int length ) {
+        return length <= SHORT_RUN ? length : (long) length * length;
+    }
+
+    /**
+     * Applies an action to every index of a batch, scheduled by the costs.
+     * Each task takes a worker from a shared queue, or creates one if none
+     * is free, and returns it when the task is done, so a worker is only
+     * used by one thread at a time.
+     * @param <W> the type of the workers
+     * @param pool the pool that runs the tasks
+     * @param costs the estimated cost of each index
+     * @param workers a source of new workers
+     * @param action the action to apply to a worker and an index
+     * @return the workers created
+     */
+    static <W> Collection<W> schedule( ForkJoinPool pool,
+            long[] costs, Supplier<W> workers, ObjIntConsumer<W> action ) {
+        int size = costs.length;
+        Queue<W> idle = new ConcurrentLinkedQueue<>();
+        if ( size == 0 ) {
+            return idle;
+        }
+
+        // sort the indices by descending cost, keeping the cost in the high
+        // bits and the index in the low bits of a single long
+        long[] keyed = new long[size];
+        long maximum = Long.MAX_VALUE >>> 32;
+        for ( int i = 0; i < size; i++ ) {
+            long cost = Math.min( maximum, Math.max( 1, costs[i] ) );
+            keyed[i] = ( ( maximum - cost ) << 32 ) | i;
+        }
+        Arrays.sort( keyed );
+        int[] order = new int[size];
+        long[] cumulative = new long[size + 1];
+        for ( int i = 0; i < size; i++ ) {
+            order[i] = (int) keyed[i];
+            cumulative[i + 1] = cumulative[i] + maximum - ( keyed[i] >>> 32 );
+        }
+
+        long grain = Math.max( 1,
+                cumulative[size] / ( (long) pool.getParallelism() * TASKS_PER_THREAD ) );
+        pool.invoke( new Task<>( order, cumulative, grain, 0, size, idle, workers, action ) );
+        return idle;
+    }
+
+    private static final class Task<W> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] order;
+        private final long[] cumulative;
+        private final long grain;
+        private final int start;
+        private final int end;
+        private final Queue<W> idle;
+        private final Supplier<W> workers;
+        private final ObjIntConsumer<W> action;
+
+        Task( int[] order, long[] cumulative, long grain, int start, int end,
+                Queue<W> idle, Supplier<W> workers, ObjIntConsumer<W> action ) {
+            this.order = order;
+            this.cumulative = cumulative;
+            this.grain = grain;
+            this.start = start;
+            this.end = end;
+            this.idle = idle;
+            this.workers = workers;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if ( this.end - this.start == 1
+                    || this.cumulative[this.end] - this.cumulative[this.start] <= this.grain ) {
+                W worker = this.idle.poll();
+                if ( worker == null ) {
+                    worker = this.workers.get();
+                }
+                try {
+                    for ( int i = this.start; i < this.end; i++ ) {
+                        this.action.accept( worker, this.order[i] );
+                    }
+                }
+                finally {
+                    this.idle.add( worker );
+                }
+                return;
+            }
+
+            // divide at the half way point of the cost of the range
+            long half = ( this.cumulative[this.start] + this.cumulative[this.end] ) / 2;
+            int split = Arrays.binarySearch( this.cumulative, this.start + 1, this.end, half );
+            split = split < 0 ? -( split + 1 ) : split;
+            split = Math.max( this.start + 1, Math.min( this.end - 1, split ) );
+            invokeAll(
+                    new Task<>( this.order, this.cumulative, this.grain, this.start, split,
+                            this.idle, this.workers, this.action ),
+                    new Task<>( this.order, this.cumulative, this.grain, split, this.end,
+                            this.idle, this.workers, this.action ) );
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+/**
+ * A reusable view of a region of a character array, allowing names held 
+ * in a large buffer to be tokenised without first being copied to a
+ * {@code String}. Indices are relative to the start of the region.
+ *
+ */
+final class CharArraySequence implements CharSequence {
+    private char[] text;
+    private int offset;
+    private int length;
+
+    CharArraySequence() {
+        this.text = new char[0];
+        this.offset = 0;
+        this.length = 0;
+    }
+
+    /**
+     * Moves the view to a new region.
+     * @param text a character array
+     * @param start the index in the array of the first character of the region
+     * @param end the index in the array following the region
+     */
+    void set( char[] text, int start, int end ) {
+        this.text = text;
+        this.offset = start;
+        this.length = end - start;
+    }
+
+    /**
+     * Recovers the index in the array of the first character of the region.
+     * @return the offset of the region
+     */
+    int offset() {
+        return this.offset;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt( int index ) {
+        if ( index < 0 || index >= this.length ) {
+            throw new IndexOutOfBoundsException( "index: " + index );
+        }
+        return this.text[this.offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence( int start, int end ) {
+        if ( start < 0 || end > this.length || start > end ) {
+            throw new IndexOutOfBoundsException( 
+                    "start: " + start + ", end: " + end );
+        }
+        return new String( this.text, this.offset + start, end - start );
+    }
+
+    @Override
+    public String toString() {
+        return new String( this.text, this.offset, this.length );
+    }
+}
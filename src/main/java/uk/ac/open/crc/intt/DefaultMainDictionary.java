@@ -19,12 +19,9 @@ package uk.ac.open.crc.intt;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import uk.ac.open.crc.intt.text.WordList;
 
-import nu.floss.wordlists.Wordlist;
 import nu.floss.wordlists.Wordlists;
 
 /**
@@ -33,48 +30,60 @@ import nu.floss.wordlists.Wordlists;
  */
 class DefaultMainDictionary extends MainDictionary {
 
+    /**
+     * The word lists used by this configuration. The lists are held by
+     * the {@link WordListRegistry} and shared with other configurations.
+     */
+    private static final Wordlists[] LISTS = {
+            Wordlists.SCOWL_EN_CA,
+            Wordlists.SCOWL_EN_GB,
+            Wordlists.SCOWL_EN_US,
+            Wordlists.SCOWL_HACKER,
+            Wordlists.SCOWL_PROPER_NOUNS,
+            Wordlists.SCOWL_RUDE,
+            Wordlists.TECHNICAL };
+
     /**
      * The only instance of this class.
      *
      */
     private static DefaultMainDictionary instance = null;
     
-    private static HashSet<String> WORD_LISTS;
-    
-    private static List<WordList> wordLists;
+    private static int references = 0;
 
     /**
-     * Returns the instance of this class.
+     * Returns the instance of this class. Each call takes a reference to 
+     * the instance that should be given up with {@link #release()}.
      *
      * @return the instance of this class
      */
     synchronized static DefaultMainDictionary getInstance()  
             throws IOException, FileNotFoundException {
-        if ( wordLists == null ) {
-            wordLists = new ArrayList<>();
-            wordLists.add( new WordList(Wordlists.SCOWL_EN_CA.tag(), new Wordlist(Wordlists.SCOWL_EN_CA,true).list()));
-            wordLists.add( new WordList(Wordlists.SCOWL_EN_GB.tag(), new Wordlist( Wordlists.SCOWL_EN_GB,true).list())); //"/scowl/en_GB" );
-	    wordLists.add( new WordList( Wordlists.SCOWL_EN_US.tag(), new Wordlist(Wordlists.SCOWL_EN_US,true).list())); //"/scowl/en_US" );
-	    wordLists.add( new WordList( Wordlists.SCOWL_HACKER.tag(), new Wordlist(Wordlists.SCOWL_HACKER,true).list()));
-	    wordLists.add( new WordList( Wordlists.SCOWL_PROPER_NOUNS.tag(), new Wordlist(Wordlists.SCOWL_PROPER_NOUNS,true).list()));
-	    wordLists.add( new WordList( Wordlists.SCOWL_RUDE.tag(), new Wordlist(Wordlists.SCOWL_RUDE,true).list())); //"/scowl/rude" );
-	    wordLists.add( new WordList( Wordlists.TECHNICAL.tag(), new Wordlist(Wordlists.TECHNICAL,true).list())); //"/technical" );
-        }
-
-        if (instance == null) {
-            instance = new DefaultMainDictionary();
+        if ( instance == null ) {
+            instance = new DefaultMainDictionary( WordListRegistry.acquire( LISTS ) );
         }
+        references++;
 
         return instance;
     }
 
+    /**
+     * Gives up a reference to the instance. When no references remain the
+     * instance is discarded and its word lists are released to the registry.
+     */
+    synchronized static void release() {
+        if ( references > 0 && --references == 0 ) {
+            instance = null;
+            WordListRegistry.release( LISTS );
+        }
+    }
+
     // -------------- instance methods and fields ----------
 
     /**
      * Private constructor for the Singleton.
      */
-    private DefaultMainDictionary() throws FileNotFoundException, IOException {
+    private DefaultMainDictionary( List<WordList> wordLists ) {
         super( wordLists );
     }
-    
 }
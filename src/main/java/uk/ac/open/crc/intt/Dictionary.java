@@ -17,7 +17,9 @@
 
 package uk.ac.open.crc.intt;
 
+import java.util.BitSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * An interface for a dictionary.
@@ -32,6 +34,51 @@ interface Dictionary {
      */
     public boolean isWord(String word);
     
+    /**
+     * Indicates whether the characters from {@code start} (inclusive) to 
+     * {@code end} (exclusive) of the sequence are found in the dictionary. 
+     * Implementations compare the characters in place, ignoring case, so 
+     * callers can probe substrings of a name without creating them.
+     * @param text a character sequence containing a word to test
+     * @param start the index of the first character of the word
+     * @param end the index following the last character of the word
+     * @return {@code true} if the range is a dictionary entry
+     */
+    public default boolean isWord( CharSequence text, int start, int end ) {
+        return isWord( text.subSequence( start, end ).toString() );
+    }
+    
+    /**
+     * Marks the positions of the tokens in the list that are found in the 
+     * dictionary, so that a list of tokens can be scored with one call. 
+     * Implementations may look the tokens up in whatever order is most 
+     * efficient, and synchronised dictionaries take their lock once.
+     * @param tokens a list of tokens to test
+     * @param known the set in which the index of each token found is set; 
+     * other bits are left unchanged
+     * @return the number of tokens found
+     */
+    public default int markKnown( List<String> tokens, BitSet known ) {
+        int count = 0;
+        for ( int i = 0; i < tokens.size(); i++ ) {
+            if ( isWord( tokens.get( i ) ) ) {
+                known.set( i );
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Passes each entry in the dictionary, in lower case, to the action. 
+     * Dictionaries that are not used to recognise words in identifier 
+     * names, e.g. affix dictionaries, need not enumerate their entries.
+     * @param action an action to perform on each entry
+     */
+    public default void forEachWord( Consumer<? super String> action ) {
+        // nothing to enumerate by default
+    }
+    
     /**
      * Provides a list of the word lists within the dictionary in which the word
      * was found. 
@@ -0,0 +1,412 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import uk.ac.open.crc.intt.text.BloomFilter;
+import uk.ac.open.crc.intt.text.WordSet;
+import uk.ac.open.crc.intt.text.WordStatistics;
+
+/**
+ * An immutable version of the dictionaries aggregated by an 
+ * {@link AggregatedDictionary}: the main, abbreviation and digit 
+ * abbreviation dictionaries together with the statistics and filter 
+ * derived from their entries, and the prefix and suffix dictionaries used
+ * by the single case tokeniser. A bundle is built completely before it is
+ * published, and is never changed, so it can be read by any number of 
+ * threads without locks. Replacing a dictionary publishes a new bundle
+ * with a higher version.
+ *
+ * <p>
+ * A bundle may carry a {@link DictionaryOverlay} of words added and 
+ * removed by updates, which is consulted before the dictionaries. The 
+ * statistics and filter describe the dictionaries alone, so a bundle with
+ * a new overlay shares them with its predecessor and is cheap to create.
+ * </p>
+ *
+ */
+final class DictionaryBundle implements Dictionary {
+
+    private final long version;
+
+    private final AbbreviationDictionary abbreviations;
+    private final DigitAbbreviationDictionary digitAbbreviations;
+    private final MainDictionary words;
+
+    // the affix dictionaries are built from the aggregated dictionary, so
+    // are null in the first bundle it publishes
+    private final PrefixDictionary prefixes;
+    private final SuffixDictionary suffixes;
+
+    // the lengths and end characters of the entries, to reject ranges
+    // that cannot be words before they are hashed
+    private final WordStatistics statistics;
+
+    // answers most lookups of unknown words without probing the 
+    // dictionaries, null when there is no filter
+    private final BloomFilter filter;
+
+    // updates to the dictionaries, null when there are none
+    private final DictionaryOverlay overlay;
+
+    // words removed by updates that have been compacted, null when there
+    // are none
+    private final WordSet exclusions;
+
+    /**
+     * Builds a bundle, deriving the statistics and, if the false positive 
+     * rate is positive, the lookup filter from the dictionaries' entries.
+     *
+     * @param version the version of the bundle
+     * @param abbreviations an abbreviation dictionary
+     * @param digitAbbreviations a digit abbreviation dictionary
+     * @param words a dictionary of words
+     * @param prefixes a prefix dictionary, or {@code null}
+     * @param suffixes a suffix dictionary, or {@code null}
+     * @param falsePositiveRate the false positive rate of the lookup 
+     * filter, or 0 for no filter
+     * @param maximumBytes the most memory the filter may use
+     * @param overlay updates to the dictionaries, or {@code null}
+     * @param exclusions words removed from the dictionaries by compacted 
+     * updates, or {@code null}
+     */
+    DictionaryBundle( long version, 
+            AbbreviationDictionary abbreviations, 
+            DigitAbbreviationDictionary digitAbbreviations, 
+            MainDictionary words, 
+            PrefixDictionary prefixes,
+            SuffixDictionary suffixes,
+            double falsePositiveRate, 
+            long maximumBytes,
+            DictionaryOverlay overlay,
+            WordSet exclusions ) {
+        this.version = version;
+        this.abbreviations = abbreviations;
+        this.digitAbbreviations = digitAbbreviations;
+        this.words = words;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.overlay = overlay;
+        this.exclusions = exclusions;
+
+        WordStatistics wordStatistics = new WordStatistics();
+        forEachDictionaryWord( wordStatistics::add );
+        this.statistics = wordStatistics;
+        this.filter = falsePositiveRate > 0 
+                ? buildFilter( falsePositiveRate, maximumBytes ) 
+                : null;
+    }
+
+    // a copy of a bundle with a different filter, overlay or affixes, which 
+    // need not recompute the statistics
+    private DictionaryBundle( long version, 
+            DictionaryBundle bundle, 
+            BloomFilter filter, 
+            DictionaryOverlay overlay,
+            PrefixDictionary prefixes,
+            SuffixDictionary suffixes ) {
+        this.version = version;
+        this.abbreviations = bundle.abbreviations;
+        this.digitAbbreviations = bundle.digitAbbreviations;
+        this.words = bundle.words;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.statistics = bundle.statistics;
+        this.filter = filter;
+        this.overlay = overlay;
+        this.exclusions = bundle.exclusions;
+    }
+
+    /**
+     * Creates the next version of this bundle with a different lookup 
+     * filter.
+     * @param falsePositiveRate the false positive rate of the filter, or 0 
+     * to remove the filter
+     * @param maximumBytes the most memory the filter may use
+     * @return a new bundle with the same dictionaries
+     */
+    DictionaryBundle withLookupFilter( double falsePositiveRate, long maximumBytes ) {
+        return new DictionaryBundle( this.version + 1, this, 
+                falsePositiveRate > 0 ? buildFilter( falsePositiveRate, maximumBytes ) : null,
+                this.overlay, this.prefixes, this.suffixes );
+    }
+
+    /**
+     * Creates the next version of this bundle with a different overlay.
+     * @param updates the updates to the dictionaries, or {@code null} for 
+     * none
+     * @return a new bundle with the same dictionaries
+     */
+    DictionaryBundle withOverlay( DictionaryOverlay updates ) {
+        return new DictionaryBundle( this.version + 1, this, this.filter, updates, 
+                this.prefixes, this.suffixes );
+    }
+
+    /**
+     * Creates the next version of this bundle with different affix 
+     * dictionaries.
+     * @param prefixDictionary a prefix dictionary
+     * @param suffixDictionary a suffix dictionary
+     * @return a new bundle with the same main and abbreviation dictionaries
+     */
+    DictionaryBundle withAffixes( 
+            PrefixDictionary prefixDictionary, SuffixDictionary suffixDictionary ) {
+        return new DictionaryBundle( this.version + 1, this, this.filter, this.overlay, 
+                prefixDictionary, suffixDictionary );
+    }
+
+    private BloomFilter buildFilter( double falsePositiveRate, long maximumBytes ) {
+        int[] count = new int[1];
+        forEachDictionaryWord( word -> count[0]++ );
+        BloomFilter bloomFilter = 
+                new BloomFilter( count[0], falsePositiveRate, maximumBytes );
+        forEachDictionaryWord( bloomFilter::add );
+        return bloomFilter;
+    }
+
+    /**
+     * Reports the version of the bundle. Each bundle published by an 
+     * aggregated dictionary has a higher version than the last.
+     * @return the version
+     */
+    long version() {
+        return this.version;
+    }
+
+    AbbreviationDictionary getAbbreviationDictionary() {
+        return this.abbreviations;
+    }
+
+    DigitAbbreviationDictionary getDigitAbbreviationDictionary() {
+        return this.digitAbbreviations;
+    }
+
+    MainDictionary getMainDictionary() {
+        return this.words;
+    }
+
+    PrefixDictionary getPrefixDictionary() {
+        return this.prefixes;
+    }
+
+    SuffixDictionary getSuffixDictionary() {
+        return this.suffixes;
+    }
+
+    /**
+     * Retrieves the updates to the dictionaries.
+     * @return the overlay, or {@code null} if there are no updates
+     */
+    DictionaryOverlay overlay() {
+        return this.overlay;
+    }
+
+    /**
+     * Provides the statistics of the entries in the dictionaries, which 
+     * identify ranges that cannot be words without looking them up.
+     * @return the statistics of the dictionaries' entries
+     */
+    WordStatistics statistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Reports the length of the longest entry in the dictionaries.
+     * @return the length of the longest word
+     */
+    int maximumWordLength() {
+        return this.overlay == null 
+                ? this.statistics.maximumLength()
+                : Math.max( this.statistics.maximumLength(), this.overlay.maximumLength() );
+    }
+
+    /**
+     * Indicates whether the bundle has a lookup filter.
+     * @return {@code true} if lookups are filtered
+     */
+    boolean hasLookupFilter() {
+        return this.filter != null;
+    }
+
+    @Override
+    public boolean isWord( String token ) {
+        if ( this.overlay != null ) {
+            if ( this.overlay.isRemoved( token ) ) {
+                return false;
+            }
+            if ( this.overlay.isAdded( token ) ) {
+                return true;
+            }
+        }
+        if ( isExcluded( token, 0, token.length() ) ) {
+            return false;
+        }
+        if ( ! this.statistics.mightContain( token, 0, token.length() ) ) {
+            return false;
+        }
+        if ( this.filter != null && ! this.filter.mightContain( token ) ) {
+            return false;
+        }
+        return ( this.words.isWord( token )
+                || this.abbreviations.isWord( token )
+                || this.digitAbbreviations.isWord( token ) );
+    }
+
+    @Override
+    public boolean isWord( CharSequence text, int start, int end ) {
+        if ( this.overlay != null ) {
+            if ( this.overlay.isRemoved( text, start, end ) ) {
+                return false;
+            }
+            if ( this.overlay.isAdded( text, start, end ) ) {
+                return true;
+            }
+        }
+        if ( isExcluded( text, start, end ) ) {
+            return false;
+        }
+        if ( ! this.statistics.mightContain( text, start, end ) ) {
+            return false;
+        }
+        if ( this.filter != null && ! this.filter.mightContain( text, start, end ) ) {
+            return false;
+        }
+        return ( this.words.isWord( text, start, end )
+                || this.abbreviations.isWord( text, start, end )
+                || this.digitAbbreviations.isWord( text, start, end ) );
+    }
+
+    // the statistics and filter reject most tokens, so all the tokens are 
+    // screened first and only the survivors are probed in each dictionary
+    // in turn
+    @Override
+    public int markKnown( List<String> tokens, BitSet known ) {
+        int size = tokens.size();
+        BitSet candidates = new BitSet( size );
+        int count = 0;
+        for ( int i = 0; i < size; i++ ) {
+            String token = tokens.get( i );
+            if ( this.overlay != null ) {
+                if ( this.overlay.isRemoved( token ) ) {
+                    continue;
+                }
+                if ( this.overlay.isAdded( token ) ) {
+                    known.set( i );
+                    count++;
+                    continue;
+                }
+            }
+            if ( isExcluded( token, 0, token.length() ) ) {
+                continue;
+            }
+            if ( this.statistics.mightContain( token, 0, token.length() )
+                    && ( this.filter == null || this.filter.mightContain( token ) ) ) {
+                candidates.set( i );
+            }
+        }
+        count += markCandidates( this.words, tokens, candidates, known );
+        count += markCandidates( this.abbreviations, tokens, candidates, known );
+        count += markCandidates( this.digitAbbreviations, tokens, candidates, known );
+        return count;
+    }
+
+    private boolean isExcluded( CharSequence text, int start, int end ) {
+        return this.exclusions != null && this.exclusions.contains( text, start, end );
+    }
+
+    // marks the candidates found in the dictionary as known, and removes
+    // them from the candidates
+    private static int markCandidates( Dictionary dictionary, 
+            List<String> tokens, BitSet candidates, BitSet known ) {
+        int count = 0;
+        for ( int i = candidates.nextSetBit( 0 ); i >= 0; i = candidates.nextSetBit( i + 1 ) ) {
+            if ( dictionary.isWord( tokens.get( i ) ) ) {
+                candidates.clear( i );
+                known.set( i );
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void forEachWord( Consumer<? super String> action ) {
+        if ( this.overlay == null && this.exclusions == null ) {
+            forEachDictionaryWord( action );
+            return;
+        }
+        forEachDictionaryWord( word -> {
+            if ( ! isExcluded( word, 0, word.length() ) 
+                    && ( this.overlay == null 
+                        || ( ! this.overlay.isRemoved( word ) && ! this.overlay.isAdded( word ) ) ) ) {
+                action.accept( word );
+            }
+        } );
+        if ( this.overlay != null ) {
+            this.overlay.additions().forEach( action );
+        }
+    }
+
+    // the entries of the dictionaries, ignoring the overlay
+    private void forEachDictionaryWord( Consumer<? super String> action ) {
+        this.words.forEachWord( action );
+        this.abbreviations.forEachWord( action );
+        this.digitAbbreviations.forEachWord( action );
+    }
+
+    @Override
+    public List<String> tags( String word ) {
+        List<String> tags = new ArrayList<>();
+        if ( this.overlay != null ) {
+            if ( this.overlay.isRemoved( word ) ) {
+                return tags;
+            }
+            if ( this.overlay.isAdded( word ) ) {
+                tags.add( DictionaryOverlay.TAG );
+            }
+        }
+        if ( isExcluded( word, 0, word.length() ) ) {
+            return tags;
+        }
+        tags.addAll( this.abbreviations.tags( word ) );
+        tags.addAll( this.digitAbbreviations.tags( word ) );
+        tags.addAll( this.words.tags( word ) );
+        return tags;
+    }
+
+    /**
+     * Checks if all the strings in a list can be found in the dictionaries.
+     * @param tokens a list of tokens found in a name
+     * @return {@code true} if all the tokens are recognised.
+     */
+    boolean isAllKnownWords( List<String> tokens ) {
+        return markKnown( tokens, new BitSet( tokens.size() ) ) == tokens.size();
+    }
+
+    /**
+     * Returns an integer percentage of the component words
+     * contained in the dictionaries.
+     * @param tokens a {@code List} of tokens
+     * @return the percentage as an integer of tokens found in the dictionaries
+     */
+    int percentageKnown( List<String> tokens ) {
+        int knownCount = markKnown( tokens, new BitSet( tokens.size() ) );
+        return (int) ( 100 * knownCount / tokens.size() );
+    }
+}
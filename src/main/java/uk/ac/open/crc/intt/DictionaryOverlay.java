@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import uk.ac.open.crc.intt.text.WordSet;
+
+/**
+ * A small, immutable set of changes to the dictionaries: words added and 
+ * words removed since the dictionaries were built. The overlay is 
+ * consulted before the dictionaries, so changes take effect as soon as a
+ * new overlay is published, without rebuilding the dictionaries. A word 
+ * is never both added and removed; the latest change to a word wins.
+ *
+ * <p>
+ * Each update copies the overlay, so overlays are expected to stay small 
+ * and are compacted into the dictionaries from time to time. 
+ * </p>
+ *
+ */
+final class DictionaryOverlay {
+
+    /**
+     * The tag of the words added by updates, and of the word list they are
+     * compacted into.
+     */
+    static final String TAG = "update";
+
+    private final WordSet additions;
+    private final WordSet removals;
+    private final int maximumLength;
+
+    /**
+     * Creates an empty overlay.
+     */
+    DictionaryOverlay() {
+        this( new WordSet(), new WordSet() );
+    }
+
+    private DictionaryOverlay( WordSet additions, WordSet removals ) {
+        this.additions = additions;
+        this.removals = removals;
+        int[] longest = new int[1];
+        additions.forEach( word -> longest[0] = Math.max( longest[0], word.length() ) );
+        this.maximumLength = longest[0];
+    }
+
+    /**
+     * Creates a new overlay combining this one with further changes.
+     * @param added words to add
+     * @param removed words to remove, which take precedence over the 
+     * additions in the same update
+     * @return a new overlay
+     */
+    DictionaryOverlay update( Collection<String> added, Collection<String> removed ) {
+        WordSet removedSet = new WordSet( removed );
+        WordSet addedSet = new WordSet( added );
+        WordSet newAdditions = new WordSet();
+        WordSet newRemovals = new WordSet();
+
+        this.additions.forEach( word -> {
+            if ( ! removedSet.contains( word ) ) {
+                newAdditions.add( word );
+            }
+        } );
+        addedSet.forEach( word -> {
+            if ( ! removedSet.contains( word ) ) {
+                newAdditions.add( word );
+            }
+        } );
+        this.removals.forEach( word -> {
+            if ( ! newAdditions.contains( word ) ) {
+                newRemovals.add( word );
+            }
+        } );
+        removedSet.forEach( newRemovals::add );
+        return new DictionaryOverlay( newAdditions, newRemovals );
+    }
+
+    /**
+     * Creates a new overlay without the given additions and removals, which
+     * have been compacted into the dictionaries. Any later changes are 
+     * retained.
+     * @param compactedAdditions the additions that were compacted
+     * @param compactedRemovals the removals that were compacted
+     * @return a new overlay
+     */
+    DictionaryOverlay withoutUpdates( 
+            List<String> compactedAdditions, List<String> compactedRemovals ) {
+        return new DictionaryOverlay( 
+                without( this.additions, compactedAdditions ), 
+                without( this.removals, compactedRemovals ) );
+    }
+
+    private static WordSet without( WordSet words, List<String> compacted ) {
+        WordSet compactedSet = new WordSet( compacted );
+        WordSet remaining = new WordSet();
+        words.forEach( word -> {
+            if ( ! compactedSet.contains( word ) ) {
+                remaining.add( word );
+            }
+        } );
+        return remaining;
+    }
+
+    boolean isAdded( String word ) {
+        return this.additions.contains( word );
+    }
+
+    boolean isAdded( CharSequence text, int start, int end ) {
+        return this.additions.contains( text, start, end );
+    }
+
+    boolean isRemoved( String word ) {
+        return this.removals.contains( word );
+    }
+
+    boolean isRemoved( CharSequence text, int start, int end ) {
+        return this.removals.contains( text, start, end );
+    }
+
+    /**
+     * Lists the words added, in lower case.
+     * @return the additions
+     */
+    List<String> additions() {
+        List<String> words = new ArrayList<>( this.additions.size() );
+        this.additions.forEach( words::add );
+        return words;
+    }
+
+    /**
+     * Lists the words removed, in lower case.
+     * @return the removals
+     */
+    List<String> removals() {
+        List<String> words = new ArrayList<>( this.removals.size() );
+        this.removals.forEach( words::add );
+        return words;
+    }
+
+    int additionCount() {
+        return this.additions.size();
+    }
+
+    int removalCount() {
+        return this.removals.size();
+    }
+
+    /**
+     * Reports the length of the longest word added.
+     * @return the length of the longest addition, or 0 if there are none
+     */
+    int maximumLength() {
+        return this.maximumLength;
+    }
+}
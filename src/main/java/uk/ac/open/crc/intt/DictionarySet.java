@@ -20,6 +20,9 @@ package uk.ac.open.crc.intt;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * A convenience class for that contains a set of dictionaries
@@ -35,12 +38,20 @@ class DictionarySet {
     private ProjectVocabulary projectVocabulary;
     private SuffixDictionary suffixDictionary;
 
-    // the following are common and not user configurable.
-    {
-        this.abbreviationDictionary = DefaultAbbreviationDictionary.getInstance();
-        this.digitAbbreviationDictionary = DefaultDigitAbbreviationDictionary.getInstance();
-        this.projectVocabulary = new ProjectVocabulary();        
-   }
+    // the configuration whose shared main dictionary is referenced, if any
+    private DictionaryConfiguration sharedConfiguration = null;
+
+    // settings of the Bloom filters in front of the lookups, 0 when off
+    private double lookupFilterRate = 0;
+    private long lookupFilterBytes = 0;
+
+    // bounds of the project vocabulary, 0 entries when unbounded
+    private int vocabularyMaximumEntries = 0;
+    private long vocabularyMaximumBytes = 0;
+    private int vocabularyDecayInterval = 0;
+
+    // the vocabularies of projects that share these dictionaries
+    private final ProjectVocabularies projectVocabularies = new ProjectVocabularies();
 
     /**
      * Creates a new dictionary set populated with the default dictionaries.
@@ -48,16 +59,7 @@ class DictionarySet {
      * @throws FileNotFoundException thrown if the input word list file is not found
      */
     DictionarySet() throws IOException, FileNotFoundException {
-        this.mainDictionary = DefaultMainDictionary.getInstance();
-    
-        this.aggregatedDictionary = new AggregatedDictionary(
-                this.abbreviationDictionary,
-                this.digitAbbreviationDictionary,
-                this.mainDictionary);
-        this.prefixDictionary = 
-                DefaultPrefixDictionary.getInstance(this.aggregatedDictionary);
-        this.suffixDictionary = 
-                DefaultSuffixDictionary.getinstance(this.aggregatedDictionary);
+        this( DictionaryConfiguration.DEFAULT );
     }
 
     /**
@@ -68,28 +70,107 @@ class DictionarySet {
      * @throws FileNotFoundException thrown if the input word list file is not found
      */
     DictionarySet( final DictionaryConfiguration dc ) throws IOException, FileNotFoundException {
+        this( dc, null, null, null, null, null, null );
+    }
+
+    /**
+     * Creates a new dictionary set from the supplied components. Only the 
+     * default dictionaries needed in place of {@code null} components are 
+     * loaded.
+     * @param dc the configuration providing the default main dictionary
+     * @param mainDictionary a main dictionary, or {@code null} for the default
+     * @param abbreviationDictionary an abbreviation dictionary, or 
+     * {@code null} for the default
+     * @param digitAbbreviationDictionary a digit abbreviation dictionary, or 
+     * {@code null} for the default
+     * @param prefixDictionary creates a prefix dictionary from the aggregated 
+     * dictionary, or {@code null} for the default
+     * @param suffixDictionary creates a suffix dictionary from the aggregated 
+     * dictionary, or {@code null} for the default
+     * @param projectVocabulary a project vocabulary, or {@code null} for an
+     * empty vocabulary
+     * @throws IOException if a problem is encountered reading the dictionary
+     * @throws FileNotFoundException thrown if the input word list file is not found
+     */
+    DictionarySet( 
+            DictionaryConfiguration dc,
+            MainDictionary mainDictionary,
+            AbbreviationDictionary abbreviationDictionary,
+            DigitAbbreviationDictionary digitAbbreviationDictionary,
+            Function<AggregatedDictionary, PrefixDictionary> prefixDictionary,
+            Function<AggregatedDictionary, SuffixDictionary> suffixDictionary,
+            ProjectVocabulary projectVocabulary ) 
+            throws IOException, FileNotFoundException {
+        if ( mainDictionary != null ) {
+            this.mainDictionary = mainDictionary;
+        }
+        else {
+            this.mainDictionary = defaultMainDictionary( dc );
+            this.sharedConfiguration = dc;
+        }
+        this.abbreviationDictionary = abbreviationDictionary != null 
+                ? abbreviationDictionary 
+                : DefaultAbbreviationDictionary.getInstance();
+        this.digitAbbreviationDictionary = digitAbbreviationDictionary != null 
+                ? digitAbbreviationDictionary 
+                : DefaultDigitAbbreviationDictionary.getInstance();
+        this.projectVocabulary = projectVocabulary != null 
+                ? projectVocabulary 
+                : new ProjectVocabulary();
         
+        this.aggregatedDictionary = new AggregatedDictionary(
+                this.abbreviationDictionary,
+                this.digitAbbreviationDictionary,
+                this.mainDictionary);
+        this.prefixDictionary = prefixDictionary != null 
+                ? prefixDictionary.apply( this.aggregatedDictionary ) 
+                : DefaultPrefixDictionary.getInstance(this.aggregatedDictionary);
+        this.suffixDictionary = suffixDictionary != null 
+                ? suffixDictionary.apply( this.aggregatedDictionary ) 
+                : DefaultSuffixDictionary.getinstance(this.aggregatedDictionary);
+        // publish the affix dictionaries with the others
+        this.aggregatedDictionary.changeDictionaries(this);
+    }
+    
+    private static MainDictionary defaultMainDictionary( DictionaryConfiguration dc ) 
+            throws IOException, FileNotFoundException {
         switch ( dc ) {
             case DEFAULT:
-                this.mainDictionary = DefaultMainDictionary.getInstance();
+                return DefaultMainDictionary.getInstance();
+            case GERMAN: 
+                return GermanMainDictionary.getInstance();
+            case COMBINED:
+                return CombinedMainDictionary.getInstance();
+            default:
+                throw new IllegalStateException( "Unrecognised configuration requested" );
+        }
+    }
+    
+    /**
+     * Gives up this set's reference to the shared main dictionary of its 
+     * configuration, if it uses one. Once every set using a configuration
+     * has been released its word lists are removed from the 
+     * {@link WordListRegistry}. The dictionaries remain usable by existing 
+     * tokenisers.
+     */
+    synchronized void release() {
+        if ( this.sharedConfiguration == null ) {
+            return;
+        }
+        switch ( this.sharedConfiguration ) {
+            case DEFAULT:
+                DefaultMainDictionary.release();
                 break;
             case GERMAN: 
-                this.mainDictionary = GermanMainDictionary.getInstance();
+                GermanMainDictionary.release();
                 break;
             case COMBINED:
-                this.mainDictionary = CombinedMainDictionary.getInstance();
+                CombinedMainDictionary.release();
                 break;
             default:
                 throw new IllegalStateException( "Unrecognised configuration requested" );
         }
-        this.aggregatedDictionary = new AggregatedDictionary(
-                this.abbreviationDictionary,
-                this.digitAbbreviationDictionary,
-                this.mainDictionary);
-        this.prefixDictionary = 
-                DefaultPrefixDictionary.getInstance(this.aggregatedDictionary);
-        this.suffixDictionary = 
-                DefaultSuffixDictionary.getinstance(this.aggregatedDictionary);
+        this.sharedConfiguration = null;
     }
     
     
@@ -99,7 +180,7 @@ class DictionarySet {
      * 
      * @param abbreviationDictionary an alternative abbreviation dictionary to use
      */
-    void setAbbreviationDictionary(AbbreviationDictionary abbreviationDictionary) {
+    synchronized void setAbbreviationDictionary(AbbreviationDictionary abbreviationDictionary) {
         this.abbreviationDictionary = abbreviationDictionary;
         // now propagate the change
         this.aggregatedDictionary.changeDictionaries(this);
@@ -109,7 +190,7 @@ class DictionarySet {
      * Registers a different dictionary of digit abbreviations.
      * @param digitAbbreviationDictionary an alternative dictionary
      */
-    void setDigitAbbreviationDictionary(DigitAbbreviationDictionary digitAbbreviationDictionary) {
+    synchronized void setDigitAbbreviationDictionary(DigitAbbreviationDictionary digitAbbreviationDictionary) {
         this.digitAbbreviationDictionary = digitAbbreviationDictionary;
         // now propagate the change
         this.aggregatedDictionary.changeDictionaries(this);
@@ -119,7 +200,8 @@ class DictionarySet {
      * Registers a different main dictionary.
      * @param mainDictionary an alternative main dictionary
      */
-    void setMainDictionary(MainDictionary mainDictionary) {
+    synchronized void setMainDictionary(MainDictionary mainDictionary) {
+        release();
         this.mainDictionary = mainDictionary;
         // now propagate the change
         this.aggregatedDictionary.changeDictionaries(this);
@@ -129,8 +211,10 @@ class DictionarySet {
      * Registers a different prefix dictionary.
      * @param prefixDictionary an alternative prefix dictionary
      */
-    void setPrefixDictionary(PrefixDictionary prefixDictionary) {
+    synchronized void setPrefixDictionary(PrefixDictionary prefixDictionary) {
         this.prefixDictionary = prefixDictionary;
+        // now propagate the change
+        this.aggregatedDictionary.changeDictionaries(this);
     }
 
     /**
@@ -139,14 +223,81 @@ class DictionarySet {
      */
     void setProjectVocabulary(ProjectVocabulary projectVocabulary) {
         this.projectVocabulary = projectVocabulary;
+        configure( projectVocabulary );
+    }
+
+    // applies the bounds and filter settings to a vocabulary
+    private void configure( ProjectVocabulary projectVocabulary ) {
+        if ( this.vocabularyMaximumEntries > 0 ) {
+            projectVocabulary.setBounds( this.vocabularyMaximumEntries, 
+                    this.vocabularyMaximumBytes, this.vocabularyDecayInterval );
+        }
+        if ( this.lookupFilterRate > 0 ) {
+            projectVocabulary.setLookupFilter( this.lookupFilterRate, this.lookupFilterBytes );
+        }
+    }
+
+    /**
+     * Bounds the project vocabulary, including any project vocabulary 
+     * registered later.
+     * @param maximumEntries the most words the vocabulary may hold
+     * @param maximumBytes the most memory, estimated, the words may use
+     * @param decayInterval the number of additions after which the counts
+     * used for eviction are halved, or 0 for no aging
+     */
+    synchronized void setProjectVocabularyBounds( 
+            int maximumEntries, long maximumBytes, int decayInterval ) {
+        this.vocabularyMaximumEntries = maximumEntries;
+        this.vocabularyMaximumBytes = maximumBytes;
+        this.vocabularyDecayInterval = decayInterval;
+        this.projectVocabulary.setBounds( maximumEntries, maximumBytes, decayInterval );
+        this.projectVocabularies.forEach( 
+                vocabulary -> vocabulary.setBounds( maximumEntries, maximumBytes, decayInterval ) );
+    }
+
+    /**
+     * Removes the bounds from the project vocabulary.
+     */
+    synchronized void setProjectVocabularyUnbounded() {
+        this.vocabularyMaximumEntries = 0;
+        this.projectVocabulary.setUnbounded();
+        this.projectVocabularies.forEach( ProjectVocabulary::setUnbounded );
+    }
+
+    /**
+     * Places Bloom filters in front of the lookups of the aggregated 
+     * dictionary and the project vocabulary, including any project 
+     * vocabulary registered later.
+     * @param falsePositiveRate the desired false positive rate of the filters
+     * @param maximumBytes the most memory each filter may use
+     */
+    synchronized void setLookupFilter( double falsePositiveRate, long maximumBytes ) {
+        this.lookupFilterRate = falsePositiveRate;
+        this.lookupFilterBytes = maximumBytes;
+        this.aggregatedDictionary.setLookupFilter( falsePositiveRate, maximumBytes );
+        this.projectVocabulary.setLookupFilter( falsePositiveRate, maximumBytes );
+        this.projectVocabularies.forEach( 
+                vocabulary -> vocabulary.setLookupFilter( falsePositiveRate, maximumBytes ) );
+    }
+
+    /**
+     * Removes the Bloom filters from the lookups.
+     */
+    synchronized void setLookupFilterOff() {
+        this.lookupFilterRate = 0;
+        this.aggregatedDictionary.setLookupFilterOff();
+        this.projectVocabulary.setLookupFilterOff();
+        this.projectVocabularies.forEach( ProjectVocabulary::setLookupFilterOff );
     }
 
     /**
      * Registers a different suffix dictionary.
      * @param prefixDictionary an alternative suffix dictionary
      */
-    void setSuffixDictionary(SuffixDictionary suffixDictionary) {
+    synchronized void setSuffixDictionary(SuffixDictionary suffixDictionary) {
         this.suffixDictionary = suffixDictionary;
+        // now propagate the change
+        this.aggregatedDictionary.changeDictionaries(this);
     }
 
 
@@ -198,6 +349,80 @@ class DictionarySet {
         return this.projectVocabulary;
     }
 
+    /**
+     * Adds and removes words from the dictionaries without rebuilding 
+     * them. The changes are held in an overlay that is consulted first, 
+     * and take effect for each tokeniser from the next name it tokenises.
+     * @param additions words to add
+     * @param removals words to remove
+     * @return the number of additions and removals held in the overlay
+     */
+    int updateWords( Collection<String> additions, Collection<String> removals ) {
+        return this.aggregatedDictionary.update( additions, removals );
+    }
+
+    /**
+     * Moves the words added by updates into a word list of the main 
+     * dictionary, which shares the existing lists, and the words removed 
+     * into a set of exclusions consulted before the dictionaries, because 
+     * the shared lists cannot be changed. The overlay is left holding only
+     * later updates, so it stays small. Lookups continue without waiting 
+     * while the dictionaries are rebuilt; updates wait.
+     */
+    synchronized void compactUpdates() {
+        DictionaryOverlay updates = this.aggregatedDictionary.overlay();
+        if ( updates == null 
+                || ( updates.additionCount() == 0 && updates.removalCount() == 0 ) ) {
+            return;
+        }
+        List<String> additions = updates.additions();
+        List<String> removals = updates.removals();
+        this.mainDictionary = this.mainDictionary.withUpdates( additions, removals );
+        this.aggregatedDictionary.compact( this, additions, removals );
+    }
+
+    /**
+     * Retrieves the vocabulary of a project, which is used in place of the 
+     * shared project vocabulary by that project's tokenisers. A project's
+     * vocabulary is created, empty and with the bounds and filter settings 
+     * of the shared vocabulary, when first requested.
+     * @param projectId identifies the project
+     * @return the project's vocabulary
+     */
+    synchronized ProjectVocabulary getProjectVocabulary( String projectId ) {
+        return this.projectVocabularies.get( projectId, () -> {
+            ProjectVocabulary vocabulary = new ProjectVocabulary();
+            configure( vocabulary );
+            return vocabulary;
+        } );
+    }
+
+    /**
+     * Discards the vocabulary of a project.
+     * @param projectId identifies the project
+     * @return {@code true} if the project had a vocabulary
+     */
+    boolean removeProjectVocabulary( String projectId ) {
+        return this.projectVocabularies.remove( projectId );
+    }
+
+    /**
+     * Sets the time after which a project vocabulary that has not been 
+     * used is discarded.
+     * @param idleTimeout the timeout in nanoseconds
+     */
+    void setProjectIdleTimeout( long idleTimeout ) {
+        this.projectVocabularies.setIdleTimeout( idleTimeout );
+    }
+
+    /**
+     * Reports the number of projects with their own vocabulary.
+     * @return the number of project vocabularies
+     */
+    int projectCount() {
+        return this.projectVocabularies.size();
+    }
+
     /**
      * Retrieves the suffix dictionary.
      * @return the suffix dictionary
@@ -20,8 +20,10 @@ package uk.ac.open.crc.intt;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
+import java.util.function.Consumer;
+import uk.ac.open.crc.intt.text.CaseFolding;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * A dictionary of digit containing abbreviations.
@@ -29,7 +31,7 @@ import java.util.List;
  */
 class DigitAbbreviationDictionary implements Dictionary {
 
-    private final HashSet<String> abbreviationSet;
+    private final StaticWordSet abbreviationSet;
     private final List<String> abbreviations;
     private String name = "Digit Abbreviation Dictionary";
 
@@ -40,10 +42,7 @@ class DigitAbbreviationDictionary implements Dictionary {
      */
     DigitAbbreviationDictionary ( List<String> abbreviations ) {
         this.abbreviations = abbreviations;
-        this.abbreviationSet = new HashSet<>();
-        abbreviations.stream().forEach( (abbreviation) -> {
-            this.abbreviationSet.add( abbreviation.toLowerCase() );
-        } );
+        this.abbreviationSet = new StaticWordSet( abbreviations );
     }
 
     /**
@@ -66,8 +65,18 @@ class DigitAbbreviationDictionary implements Dictionary {
      *
      */
     @Override
-    public synchronized boolean isWord ( String token ) {
-        return this.abbreviationSet.contains( token.toLowerCase() );
+    public boolean isWord ( String token ) {
+        return this.abbreviationSet.contains( token );
+    }
+
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        return this.abbreviationSet.contains( text, start, end );
+    }
+
+    @Override
+    public void forEachWord( Consumer<? super String> action ) {
+        this.abbreviationSet.forEach( action );
     }
     
     @Override
@@ -98,10 +107,10 @@ class DigitAbbreviationDictionary implements Dictionary {
      * @return a list of recognised numeric abbreviations found to be a
      * substring of identifier name.
      */
-    synchronized List<String> findKnownSubstrings ( String identifierNameFragment ) {
+    List<String> findKnownSubstrings ( String identifierNameFragment ) {
         HashMap<Integer, String> foundWords = new HashMap<>();
 
-        String normalisedFragment = identifierNameFragment.toLowerCase();
+        String normalisedFragment = CaseFolding.fold( identifierNameFragment );
 
         // NB must work on the list, not the <code>HashSet</code>
         // too small to worry about selecting a more efficient data structure
@@ -16,8 +16,18 @@
 
 package uk.ac.open.crc.intt;
 
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.open.crc.intt.text.CountedWordSet;
 
 /**
  * Provides a simple API
@@ -28,16 +38,48 @@ import java.util.List;
  * {@linkplain IdentifierNameTokeniserFactory}.
  * </p>
  *
+ * <p>
+ * A tokeniser created before its dictionaries have loaded (see 
+ * {@linkplain IdentifierNameTokeniserFactory#createWithoutWaiting()}) 
+ * applies naive tokenisation to every request until the dictionaries are 
+ * available, and then switches to full tokenisation. 
+ * {@linkplain #isReady()} indicates which behaviour is in use.
+ * </p>
+ *
  */
 public final class IdentifierNameTokeniser {
+    private static final Logger LOGGER = 
+            LoggerFactory.getLogger( IdentifierNameTokeniser.class );
+
+    // the dictionary dependent components are set once the dictionaries 
+    // are available, and the basic tokeniser replaced
+    private BasicTokeniser basicTokeniser;
+    private SingleCaseTokeniser singleCaseTokeniser;
+    // replaces the single case tokeniser when set
+    private Function<String, List<String>> splitter = null;
+
+    private DictionarySet dictionarySet;
+
+    private AggregatedDictionary aggregatedDictionary;
+    private ProjectVocabulary projectVocabulary;
+
+    // the version of the dictionaries the components use, which is 
+    // checked once per name so that every lookup for a name agrees
+    private DictionaryBundle dictionaries;
+
+    private volatile boolean ready;
 
-    private final BasicTokeniser basicTokeniser;
-    private final SingleCaseTokeniser singleCaseTokeniser;
+    // false for the workers of tokeniseAll, which read a frozen vocabulary,
+    // collect the words of the first phase in a shard and keep the version
+    // of the dictionaries they were created with
+    private boolean learning = true;
+    private CountedWordSet shard;
+    private boolean pinned = false;
 
-    private final DictionarySet dictionarySet;
+    // holds additions to the vocabulary when they are made in batches
+    private VocabularyBuffer vocabularyBuffer = null;
 
-    private final AggregatedDictionary aggregatedDictionary;
-    private final ProjectVocabulary projectVocabulary;
+    private final String separatorCharacters;
 
     private final int projectVocabularyThreshold;
 
@@ -46,6 +88,14 @@ public final class IdentifierNameTokeniser {
     
     private final PrefixConcatenator prefixConcatenator;
     
+    private TokenPool tokenPool;
+    
+    // buffers reused between calls to avoid allocation during tokenisation
+    private SpanBuffer words;
+    private SpanBuffer expandedWords;
+    private final SpanBuffer tokens;
+    private final CharArraySequence window;
+    
     /**
      * Creates an identifier tokeniser.
      * @param dictionarySet a set of dictionaries
@@ -54,33 +104,162 @@ public final class IdentifierNameTokeniser {
      * @param vocabularyThreshold a minimum length of a dictionary entity
      * @param recursiveSplit indicates if single character strings should be split
      * @param expandModals indicates if negated modal verbs should be split
+     * @param tokenPool a pool of canonical token instances, or {@code null}
+     * if tokens are not to be pooled
      */
     IdentifierNameTokeniser(
             DictionarySet dictionarySet, 
+            String separatorCharacters, 
+            int vocabularyThreshold,
+            boolean recursiveSplit,
+            boolean expandModals,
+            TokenPool tokenPool) {
+        this( separatorCharacters, vocabularyThreshold, recursiveSplit, expandModals );
+        install( dictionarySet, tokenPool );
+    }
+
+    /**
+     * Creates an identifier tokeniser without dictionaries, which applies 
+     * naive tokenisation until {@link #install(DictionarySet, TokenPool)} is 
+     * called.
+     * @param separatorCharacters a {@code String} that will be interpreted as 
+     * contain a set of separator characters
+     * @param vocabularyThreshold a minimum length of a dictionary entity
+     * @param recursiveSplit indicates if single character strings should be split
+     * @param expandModals indicates if negated modal verbs should be split
+     */
+    IdentifierNameTokeniser(
             String separatorCharacters, 
             int vocabularyThreshold,
             boolean recursiveSplit,
             boolean expandModals) {
-        this.dictionarySet = dictionarySet;
-        this.basicTokeniser = 
-                new BasicTokeniser(this.dictionarySet, separatorCharacters);
-        this.singleCaseTokeniser = 
-                new SingleCaseTokeniser(this.dictionarySet);
-        this.aggregatedDictionary = 
-                this.dictionarySet.getAggregatedDictionary();
-        this.projectVocabulary = this.dictionarySet.getProjectVocabulary();
+        this.separatorCharacters = separatorCharacters;
+        this.basicTokeniser = new BasicTokeniser( separatorCharacters );
         this.projectVocabularyThreshold = vocabularyThreshold;
         this.recursiveSplit = recursiveSplit;
         this.expandModals = expandModals;
         
         this.prefixConcatenator = new PrefixConcatenator();
+        this.ready = false;
+        
+        this.words = new SpanBuffer();
+        this.expandedWords = new SpanBuffer();
+        this.tokens = new SpanBuffer();
+        this.window = new CharArraySequence();
+    }
+
+    /**
+     * Provides the dictionaries, switching the tokeniser from naive to 
+     * full tokenisation.
+     * @param dictionarySet a set of dictionaries
+     * @param tokenPool a pool of canonical token instances, or {@code null}
+     * if tokens are not to be pooled
+     */
+    synchronized void install( DictionarySet dictionarySet, TokenPool tokenPool ) {
+        install( dictionarySet, dictionarySet.getProjectVocabulary(), tokenPool );
+    }
+
+    /**
+     * Provides the dictionaries and a project vocabulary other than the 
+     * shared vocabulary of the dictionary set, switching the tokeniser from 
+     * naive to full tokenisation.
+     * @param dictionarySet a set of dictionaries
+     * @param projectVocabulary the vocabulary the tokeniser learns and reads
+     * @param tokenPool a pool of canonical token instances, or {@code null}
+     * if tokens are not to be pooled
+     */
+    synchronized void install( 
+            DictionarySet dictionarySet, 
+            ProjectVocabulary projectVocabulary, 
+            TokenPool tokenPool ) {
+        this.dictionarySet = dictionarySet;
+        this.aggregatedDictionary = 
+                this.dictionarySet.getAggregatedDictionary();
+        this.projectVocabulary = projectVocabulary;
+        bind( this.aggregatedDictionary.bundle() );
+        this.tokenPool = tokenPool;
+        this.ready = true;
+    }
+
+    // creates the components for a version of the dictionaries
+    private void bind( DictionaryBundle bundle ) {
+        this.dictionaries = bundle;
+        this.basicTokeniser = 
+                new BasicTokeniser(bundle, this.separatorCharacters);
+        this.singleCaseTokeniser = 
+                new SingleCaseTokeniser(bundle, this.projectVocabulary);
+    }
+
+    // switches to the latest version of the dictionaries if they have 
+    // been changed since the last name was tokenised
+    private void useCurrentDictionaries() {
+        if ( ! this.pinned ) {
+            DictionaryBundle current = this.aggregatedDictionary.bundle();
+            if ( current != this.dictionaries ) {
+                bind( current );
+            }
+        }
+    }
+
+    /**
+     * Sets whether additions to the project vocabulary are made in batches.
+     * Any words already held are added to the vocabulary first.
+     * @param maximumWords the number of words held before they are added,
+     * or 0 to add each word as it is found
+     * @param maximumDelay the time in nanoseconds for which words may be
+     * held before they are added
+     */
+    synchronized void setVocabularyBuffer( int maximumWords, long maximumDelay ) {
+        flushVocabulary();
+        this.vocabularyBuffer = maximumWords > 0 
+                ? new VocabularyBuffer( maximumWords, maximumDelay ) 
+                : null;
+    }
+
+    /**
+     * Adds any words held by the tokeniser to the project vocabulary. 
+     * When the factory is configured to add words to the vocabulary in 
+     * batches, words found by a tokeniser are visible to other tokenisers, 
+     * and to the tokeniser's own single case splitting, only once they 
+     * have been flushed. Words are flushed when enough have been held, or
+     * when a name is tokenised after they have been held long enough, so
+     * a tokeniser that is no longer used should be flushed. Does nothing 
+     * if words are added as they are found.
+     */
+    public synchronized void flushVocabulary() {
+        if ( this.vocabularyBuffer != null && this.ready ) {
+            this.vocabularyBuffer.flushTo( this.projectVocabulary );
+        }
+    }
+
+    /**
+     * Indicates whether the dictionaries are available. Until they are,
+     * all the tokenisation methods apply naive tokenisation, tokens are not
+     * flagged as known and tokens have no origins.
+     * @return {@code true} if the tokeniser applies full tokenisation
+     */
+    public boolean isReady() {
+        return this.ready;
     }
 
 
     private synchronized List<String> greedySplit(String name) {
+        if ( this.splitter != null ) {
+            return this.splitter.apply( name );
+        }
         return this.singleCaseTokeniser.split(name);
     }
 
+    /**
+     * Replaces the single case tokeniser with another splitter, which is 
+     * used by the tests to supply splits that are not substrings of the word.
+     * @param splitter a function splitting a word into tokens, or 
+     * {@code null} to restore the single case tokeniser
+     */
+    synchronized void setSplitter( Function<String, List<String>> splitter ) {
+        this.splitter = splitter;
+    }
+
     /**
      * Tokenises an identifier name, returning a {@code List} of tokens.
      *
@@ -89,71 +268,446 @@ public final class IdentifierNameTokeniser {
      * @return a list of tokens
      */
     public synchronized List<String> tokenise(String identifierName) {
+        tokenise( identifierName, this.expandModals );
+        return tokenList( this.tokens );
+    }
 
-        List<String> words = this.basicTokeniser.tokenise(identifierName);
+    /**
+     * Tokenises an identifier name, passing each token to the sink in turn.
+     * Tokens are passed as ranges of the name and internal buffers are reused
+     * between calls, so names that do not need the single case or digit 
+     * algorithms are tokenised without creating any objects.
+     *
+     * @param identifierName an identifier name
+     * @param sink a consumer of tokens
+     */
+    public synchronized void tokenise( String identifierName, TokenSink sink ) {
+        tokenise( identifierName, this.expandModals );
+        emit( this.tokens, sink );
+    }
 
-        ArrayList<String> tokens = new ArrayList<>();
-        // expand the modals if set
-        if ( this.expandModals ) {
-            ArrayList<String> modalTokens = new ArrayList<>();
-            ModalExpansion expander = ModalExpansion.getInstance();
-            boolean modalExpanded = false;
-            
-            for (String word : words) {
-                if ( expander.isExpandable( word ) ) {
-                    modalTokens.addAll( expander.getExpansionFor( word ) );
-                    modalExpanded = true;
-                }
-                else {
-                    modalTokens.add( word );
-                }
-            }
-            
-            if ( modalExpanded ) {
-                // now copy it all back to words, if altered
-                words = modalTokens;
-            }
+    /**
+     * Tokenises a name, leaving the tokens in the token buffer. 
+     * 
+     * @param identifierName an identifier name
+     * @param expandModals indicates if negated modal verbs should be expanded
+     */
+    private void tokenise( CharSequence identifierName, boolean expandModals ) {
+        SpanBuffer words = this.words;
+        words.clear();
+        this.tokens.clear();
+        
+        if ( ! this.ready ) {
+            this.basicTokeniser.naiveTokenisation( identifierName, this.tokens );
+            return;
         }
         
+        useCurrentDictionaries();
+        this.basicTokeniser.tokenise( identifierName, words );
+
+        // expand the modals if set
+        if ( expandModals ) {
+            words = expandModals( words );
+        }
         
         if ( this.recursiveSplit ) {
             // applies greedysplit to every unrecognised token.
-            for (String word : words) {
-                if (word.length() > 1 
-                        && ! this.aggregatedDictionary.isWord( word )
-                        && ! word.matches("^.*[0-9]+.*$")) {
-                    tokens.addAll( greedySplit( word ) );
+            for ( int i = 0; i < words.size(); i++ ) {
+                if ( isSplittable( words, i ) ) {
+                    addGreedySplit( words, i );
                 } 
                 else {
-                    tokens.add(word);
+                    this.tokens.add( words.source( i ), words.start( i ), words.end( i ) );
                 }
             }
         }
         else {
             // the original behaviour from v0.2.0 (i.e. roughly the ECOOP paper behaviour)
             // this only splits a single case identifer name
-            if (words.size() == 1
-                    && words.get( 0 ).length() > 1
-                    && ! this.aggregatedDictionary.isWord( words.get( 0 ) )
-                    && ! words.get( 0 ).matches("^.*[0-9]+.*$")) {
+            if ( words.size() == 1 && isSplittable( words, 0 ) ) {
                 // now use the greedy
-                tokens.addAll( greedySplit( words.get( 0 ) ) );
+                addGreedySplit( words, 0 );
             }
             else {
-                tokens.addAll( words );
+                for ( int i = 0; i < words.size(); i++ ) {
+                    this.tokens.add( words.source( i ), words.start( i ), words.end( i ) );
+                }
             }
         } 
         
-            
-        tokens.stream()
-                .filter( (token) -> ( token.length() > this.projectVocabularyThreshold ) )
-                .forEach( (token) -> {
-            this.projectVocabulary.add( token );
-        } );
+        for ( int i = 0; this.learning && i < this.tokens.size(); i++ ) {
+            if ( this.tokens.length( i ) > this.projectVocabularyThreshold ) {
+                if ( this.vocabularyBuffer != null ) {
+                    this.vocabularyBuffer.add( 
+                            this.tokens.source( i ), 
+                            this.tokens.start( i ), 
+                            this.tokens.end( i ) );
+                }
+                else {
+                    this.projectVocabulary.add( 
+                            this.tokens.source( i ), 
+                            this.tokens.start( i ), 
+                            this.tokens.end( i ) );
+                }
+            }
+        }
+        if ( this.vocabularyBuffer != null && this.vocabularyBuffer.isDue() ) {
+            this.vocabularyBuffer.flushTo( this.projectVocabulary );
+        }
+        
+        words.clear();
+    }
+    
+    /**
+     * Tokenises a batch of identifier names in parallel, giving the same
+     * tokens whatever the order of the names and however the work is 
+     * scheduled.
+     *
+     * <p>
+     * The names are tokenised in two phases. In the first, each name is 
+     * tokenised conventionally, using separators, case and digits, and the 
+     * words that will not be split further are collected in a vocabulary 
+     * for each thread. The per-thread vocabularies are merged into the 
+     * project vocabulary in alphabetical order. In the second phase the 
+     * single case splitter is applied to the remaining words against a 
+     * frozen copy of the merged vocabulary, so no name's tokens depend on 
+     * when another name was tokenised. The tokens found by splitting are 
+     * not added to the project vocabulary.
+     * </p>
+     *
+     * <p>
+     * In both phases the names are scheduled by an estimate of their cost, 
+     * most expensive first, and threads that finish early steal work from
+     * the others. The work is run in the common fork join pool, so this 
+     * method should not be called from a task running in the common pool; 
+     * use {@link #tokeniseAll(List, ForkJoinPool)} to supply another pool.
+     * </p>
+     *
+     * @param identifierNames a list of identifier names
+     * 
+     * @return the tokens of each name, in the order of the names
+     */
+    public List<List<String>> tokeniseAll( List<String> identifierNames ) {
+        return tokeniseAll( identifierNames, ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Tokenises a batch of identifier names in parallel in the given pool,
+     * as described for {@link #tokeniseAll(List)}. If tokenising any name 
+     * fails, the exception is thrown once the batch has stopped and no
+     * results are returned.
+     *
+     * @param identifierNames a list of identifier names
+     * @param pool the pool in which the names are tokenised
+     * 
+     * @return the tokens of each name, in the order of the names
+     */
+    public synchronized List<List<String>> tokeniseAll( 
+            List<String> identifierNames, ForkJoinPool pool ) {
+        String[] names = identifierNames.toArray( new String[identifierNames.size()] );
+        // filled in place, each index by one task
+        List<List<String>> results = new ArrayList<>( Collections.nCopies( names.length, null ) );
+        
+        if ( ! this.ready ) {
+            for ( int i = 0; i < names.length; i++ ) {
+                results.set( i, tokenise( names[i] ) );
+            }
+            return results;
+        }
         
-        return tokens;
+        flushVocabulary();
+        // every worker uses the same version of the dictionaries
+        useCurrentDictionaries();
+        
+        // the names are scheduled by the estimated cost of tokenising them,
+        // so that expensive names do not leave threads waiting at the end
+        long[] costs = new long[names.length];
+        for ( int i = 0; i < names.length; i++ ) {
+            costs[i] = BatchScheduler.estimateCost( names[i] );
+        }
+        
+        // phase one: conventional tokenisation, each worker collecting the 
+        // words in its own shard
+        Collection<IdentifierNameTokeniser> collectors = BatchScheduler.schedule( 
+                pool,
+                costs, 
+                () -> {
+                    IdentifierNameTokeniser collector = worker( this.projectVocabulary );
+                    collector.shard = new CountedWordSet( 1024 );
+                    return collector;
+                },
+                ( collector, i ) -> collector.collectVocabulary( names[i] ) );
+
+        SortedMap<String, Integer> merged = new TreeMap<>();
+        collectors.forEach( collector -> collector.shard.forEachEntry( ( word, count ) -> 
+                merged.merge( word, count, 
+                        ( a, b ) -> (int) Math.min( Integer.MAX_VALUE, (long) a + b ) ) ) );
+        this.projectVocabulary.merge( merged );
+        
+        // phase two: single case splitting against a frozen vocabulary,
+        // one snapshot shared by every worker, which it reads without locking
+        ProjectVocabulary snapshot = this.projectVocabulary.snapshot();
+        BatchScheduler.schedule( 
+                pool,
+                costs, 
+                () -> worker( snapshot ),
+                ( splitter, i ) -> results.set( i, splitter.tokenise( names[i] ) ) );
+        
+        return results;
+    }
+    
+    // creates a tokeniser with the same configuration for one thread of
+    // tokeniseAll, reading but not adding to the vocabulary
+    private IdentifierNameTokeniser worker( ProjectVocabulary vocabulary ) {
+        IdentifierNameTokeniser worker = new IdentifierNameTokeniser( 
+                this.separatorCharacters, 
+                this.projectVocabularyThreshold, 
+                this.recursiveSplit, 
+                this.expandModals );
+        worker.dictionarySet = this.dictionarySet;
+        worker.aggregatedDictionary = this.aggregatedDictionary;
+        worker.projectVocabulary = vocabulary;
+        worker.bind( this.dictionaries );
+        worker.splitter = this.splitter;
+        worker.tokenPool = this.tokenPool;
+        worker.learning = false;
+        worker.pinned = true;
+        worker.ready = true;
+        return worker;
+    }
+    
+    // the first phase of tokeniseAll: tokenises a name conventionally and 
+    // records in its shard the words the single case splitter will not 
+    // be applied to, which are the words tokenise() adds to the vocabulary
+    private void collectVocabulary( String identifierName ) {
+        SpanBuffer words = this.words;
+        words.clear();
+        this.basicTokeniser.tokenise( identifierName, words );
+        if ( this.expandModals ) {
+            words = expandModals( words );
+        }
+        
+        boolean splitting = this.recursiveSplit || words.size() == 1;
+        for ( int i = 0; i < words.size(); i++ ) {
+            if ( ( splitting && isSplittable( words, i ) ) 
+                    || words.length( i ) <= this.projectVocabularyThreshold ) {
+                continue;
+            }
+            this.shard.add( words.source( i ), words.start( i ), words.end( i ) );
+        }
+        words.clear();
+    }
+    
+    // replaces any negated modal verbs with their expansions, which
+    // become the sources of the new entries
+    private SpanBuffer expandModals( SpanBuffer words ) {
+        ModalExpansion expander = ModalExpansion.getInstance();
+        SpanBuffer modalWords = this.expandedWords;
+        modalWords.clear();
+        boolean modalExpanded = false;
+        
+        for ( int i = 0; i < words.size(); i++ ) {
+            if ( expander.isExpandable( words.source( i ), words.start( i ), words.end( i ) ) ) {
+                String word = words.token( i );
+                for ( String expansion : expander.getExpansionFor( word ) ) {
+                    modalWords.add( expansion, 0, expansion.length() );
+                }
+                modalExpanded = true;
+            }
+            else {
+                modalWords.add( words.source( i ), words.start( i ), words.end( i ) );
+            }
+        }
+        
+        if ( ! modalExpanded ) {
+            return words;
+        }
+        
+        // swap the buffers so the expanded words are used
+        words.clear();
+        this.expandedWords = words;
+        this.words = modalWords;
+        return modalWords;
+    }
+    
+    // true for unrecognised words of two or more characters without digits
+    private boolean isSplittable( SpanBuffer words, int index ) {
+        CharSequence word = words.source( index );
+        int start = words.start( index );
+        int end = words.end( index );
+        return end - start > 1
+                && ! this.dictionaries.isWord( word, start, end )
+                && ! BasicTokeniser.containsDigit( word, start, end );
+    }
+    
+    // the tokens found by the single case tokeniser are consecutive 
+    // substrings of the word, so are recorded as ranges of its source. 
+    // The span outputs depend on every token being a range of the name, so
+    // if a token is not found the rest of the word is kept as one token
+    private void addGreedySplit( SpanBuffer words, int index ) {
+        CharSequence source = words.source( index );
+        int position = words.start( index );
+        int end = words.end( index );
+        for ( String token : greedySplit( words.token( index ) ) ) {
+            int start = BasicTokeniser.indexOf( source, token, position, end );
+            if ( start < 0 ) {
+                LOGGER.warn( "Split token \"{}\" is not a substring of \"{}\"", 
+                        token, words.token( index ) );
+                if ( position < end ) {
+                    this.tokens.add( source, position, end );
+                }
+                return;
+            }
+            position = start + token.length();
+            this.tokens.add( source, start, position );
+        }
     }
 
+    /**
+     * Tokenises an identifier name, returning the id of each token in the
+     * table. Tokens not already in the table are added to it. Tokens are
+     * looked up as ranges of the name, so tokens found in the dictionaries
+     * are converted to ids without creating strings.
+     *
+     * @param identifierName an identifier name
+     * @param table the table used to assign ids to tokens
+     * 
+     * @return the ids of the tokens in order
+     */
+    public synchronized int[] tokeniseToIds( String identifierName, TokenIdTable table ) {
+        tokenise( identifierName, this.expandModals );
+        int[] ids = new int[this.tokens.size()];
+        for ( int i = 0; i < ids.length; i++ ) {
+            ids[i] = table.id( this.tokens.source( i ), this.tokens.start( i ), this.tokens.end( i ) );
+        }
+        this.tokens.clear();
+        return ids;
+    }
+
+    /**
+     * Tokenises an identifier name, returning the boundaries of the tokens 
+     * within the name. The tokens are the same as those returned by 
+     * {@link #tokenise(String)} except that negated modal verbs are 
+     * never expanded, because the expansions do not appear in the name.
+     *
+     * @param identifierName an identifier name
+     * 
+     * @return the spans of the tokens within the name
+     */
+    public synchronized TokenSpans tokeniseToSpans( String identifierName ) {
+        tokenise( identifierName, false );
+        return toSpans( identifierName, this.tokens );
+    }
+    
+    /**
+     * Tokenises a batch of identifier names held in a single character array.
+     * Name <i>n</i> occupies the characters from {@code offsets[n]} 
+     * (inclusive) to {@code offsets[n + 1]} (exclusive), so the offsets 
+     * array contains one more entry than there are names. The names are 
+     * tokenised in place, without creating a {@code String} for each, and 
+     * the token boundaries are written to the result as indices in the 
+     * array. As with {@link #tokeniseToSpans(String)} negated modal verbs 
+     * are not expanded.
+     *
+     * @param text a character array containing the names
+     * @param offsets the boundaries of the names in the array
+     * 
+     * @return the tokens of all the names
+     */
+    public PackedTokens tokenise( char[] text, int[] offsets ) {
+        PackedTokens output = new PackedTokens();
+        tokenise( text, offsets, output );
+        return output;
+    }
+    
+    /**
+     * Tokenises a batch of identifier names held in a single character array,
+     * writing the results to an existing, possibly reused, result. See 
+     * {@link #tokenise(char[], int[])}.
+     *
+     * @param text a character array containing the names
+     * @param offsets the boundaries of the names in the array
+     * @param output the result to which the tokens are written
+     */
+    public void tokenise( char[] text, int[] offsets, PackedTokens output ) {
+        tokenise( text, 0, text.length, offsets, output );
+    }
+    
+    /**
+     * Tokenises a batch of identifier names held in a {@code CharBuffer}. 
+     * The offsets, and the boundaries of the tokens in the result, are 
+     * relative to the position of the buffer. The position of the buffer
+     * is not changed.
+     *
+     * @param text a buffer containing the names
+     * @param offsets the boundaries of the names in the buffer
+     * 
+     * @return the tokens of all the names
+     */
+    public PackedTokens tokenise( CharBuffer text, int[] offsets ) {
+        PackedTokens output = new PackedTokens();
+        tokenise( text, offsets, output );
+        return output;
+    }
+    
+    /**
+     * Tokenises a batch of identifier names held in a {@code CharBuffer},
+     * writing the results to an existing, possibly reused, result. See 
+     * {@link #tokenise(CharBuffer, int[])}.
+     *
+     * @param text a buffer containing the names
+     * @param offsets the boundaries of the names in the buffer
+     * @param output the result to which the tokens are written
+     */
+    public void tokenise( CharBuffer text, int[] offsets, PackedTokens output ) {
+        if ( text.hasArray() ) {
+            int base = text.arrayOffset() + text.position();
+            tokenise( text.array(), base, text.remaining(), offsets, output );
+        }
+        else {
+            // direct and read only buffers have to be copied once
+            char[] copy = new char[text.remaining()];
+            text.duplicate().get( copy );
+            tokenise( copy, 0, copy.length, offsets, output );
+        }
+    }
+    
+    private synchronized void tokenise( 
+            char[] text, 
+            int base, 
+            int length, 
+            int[] offsets, 
+            PackedTokens output ) {
+        if ( offsets.length == 0 ) {
+            throw new IllegalArgumentException( "offsets must contain at least one entry" );
+        }
+        int identifierCount = offsets.length - 1;
+        output.reset( text, base, identifierCount );
+        
+        for ( int i = 0; i < identifierCount; i++ ) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            if ( start < 0 || end < start || end > length ) {
+                throw new IllegalArgumentException( 
+                        "invalid offsets for identifier " + i + ": " + start + ", " + end );
+            }
+            this.window.set( text, base + start, base + end );
+            tokenise( this.window, false );
+            for ( int j = 0; j < this.tokens.size(); j++ ) {
+                checkSource( this.tokens, j, this.window );
+                int tokenStart = this.tokens.start( j );
+                int tokenEnd = this.tokens.end( j );
+                output.addToken( 
+                        start + tokenStart, 
+                        start + tokenEnd, 
+                        flags( this.window, tokenStart, tokenEnd ) );
+            }
+            output.endIdentifier();
+            this.tokens.clear();
+        }
+        this.window.set( null, 0, 0 );
+    }
+    
     /**
      * Tokenises an identifier name, returning a {@code List} of tokens each of 
      * which lists the word lists in which the token was found. 
@@ -174,7 +728,37 @@ public final class IdentifierNameTokeniser {
      * @return a list of tokens resulting from conservative tokenisation 
      */
     public synchronized List<String> naiveTokenisation( String identifierName ) {
-        return this.basicTokeniser.naiveTokensation( identifierName );
+        naiveTokenisation( identifierName, this.tokens );
+        return tokenList( this.tokens );
+    }
+    
+    /**
+     * Undertakes a naive or conservative tokenisation using separator 
+     * characters and LCUC boundaries, passing each token to the sink as a
+     * range of the name. No objects are created.
+     * @param identifierName a name
+     * @param sink a consumer of tokens
+     */
+    public synchronized void naiveTokenisation( String identifierName, TokenSink sink ) {
+        naiveTokenisation( identifierName, this.tokens );
+        emit( this.tokens, sink );
+    }
+    
+    /**
+     * Undertakes a naive or conservative tokenisation using separator 
+     * characters and LCUC boundaries, returning the boundaries of the tokens
+     * within the name. No intermediate strings are created.
+     * @param identifierName a name
+     * @return the spans of the tokens resulting from conservative tokenisation
+     */
+    public synchronized TokenSpans naiveTokenisationToSpans( String identifierName ) {
+        naiveTokenisation( identifierName, this.tokens );
+        return toSpans( identifierName, this.tokens );
+    }
+    
+    private void naiveTokenisation( CharSequence identifierName, SpanBuffer tokens ) {
+        tokens.clear();
+        this.basicTokeniser.naiveTokenisation( identifierName, tokens );
     }
     
     /**
@@ -188,13 +772,78 @@ public final class IdentifierNameTokeniser {
         return tagTokens( naiveTokenisation( identifierName ) ); 
     }
 
+    private List<String> tokenList( SpanBuffer tokens ) {
+        ArrayList<String> tokenList = new ArrayList<>( tokens.size() );
+        for ( int i = 0; i < tokens.size(); i++ ) {
+            if ( this.tokenPool == null ) {
+                tokenList.add( tokens.token( i ) );
+            }
+            else {
+                tokenList.add( this.tokenPool.intern( 
+                        tokens.source( i ), tokens.start( i ), tokens.end( i ) ) );
+            }
+        }
+        tokens.clear();
+        return tokenList;
+    }
+    
+    private void emit( SpanBuffer tokens, TokenSink sink ) {
+        for ( int i = 0; i < tokens.size(); i++ ) {
+            CharSequence source = tokens.source( i );
+            int start = tokens.start( i );
+            int end = tokens.end( i );
+            sink.accept( source, start, end, flags( source, start, end ) );
+        }
+        tokens.clear();
+    }
+    
+    // all the tokens must be ranges of the name
+    private TokenSpans toSpans( String identifierName, SpanBuffer tokens ) {
+        int[] spans = new int[tokens.size() * TokenSpans.STRIDE];
+        for ( int i = 0; i < tokens.size(); i++ ) {
+            checkSource( tokens, i, identifierName );
+            int start = tokens.start( i );
+            int end = tokens.end( i );
+            spans[i * TokenSpans.STRIDE] = start;
+            spans[i * TokenSpans.STRIDE + 1] = end;
+            spans[i * TokenSpans.STRIDE + 2] = flags( identifierName, start, end );
+        }
+        tokens.clear();
+        return new TokenSpans( identifierName, spans );
+    }
+
+    private static void checkSource( SpanBuffer tokens, int index, CharSequence name ) {
+        if ( tokens.source( index ) != name ) {
+            tokens.clear();
+            throw new IllegalStateException( 
+                    "Token is not a range of the name: " + name );
+        }
+    }
+
+    private int flags( CharSequence source, int start, int end ) {
+        int flags = 0;
+        if ( this.ready && this.dictionaries.isWord( source, start, end ) ) {
+            flags |= TokenSpans.KNOWN;
+        }
+        for ( int i = start; i < end; i++ ) {
+            if ( Character.isDigit( source.charAt( i ) ) ) {
+                flags |= TokenSpans.DIGIT;
+                break;
+            }
+        }
+        return flags;
+    }
+    
     private synchronized List<TaggedToken> tagTokens( List<String> tokenList ) {
         List<TaggedToken> outputList = new ArrayList<>();
         
         tokenList.forEach(t -> {
             TaggedToken tt = new TaggedToken( t );
             outputList.add( tt );
-            this.aggregatedDictionary.tags( t ).forEach( d -> tt.add( d ));  // review this as there seems to be duplication
+            if ( ! this.ready ) {
+                return;
+            }
+            this.dictionaries.tags( t ).forEach( d -> tt.add( d ));  // review this as there seems to be duplication
         });
         return outputList;
     }
@@ -20,7 +20,15 @@ package uk.ac.open.crc.intt;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import uk.ac.open.crc.intt.text.WordListLoader;
 
 // Review
 /**
@@ -112,7 +120,29 @@ import java.util.List;
  */
 public final class IdentifierNameTokeniserFactory {
 
-    private DictionarySet dictionarySet;
+    private static final long DEFAULT_LOOKUP_FILTER_BYTES = 4L << 20;
+
+    // the number of words added by updates at which they are compacted
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private final DictionaryConfiguration configuration;
+
+    // completed when the dictionary set has been built
+    private final CompletableFuture<DictionarySet> dictionaries;
+
+    private boolean loadingStarted = false;
+
+    // completed when the tokenisers created without waiting have been 
+    // given the dictionaries
+    private CompletableFuture<Void> upgrades = CompletableFuture.completedFuture( null );
+
+    // replacement dictionaries supplied before the dictionary set is built
+    private MainDictionary mainDictionary = null;
+    private AbbreviationDictionary abbreviationDictionary = null;
+    private DigitAbbreviationDictionary digitAbbreviationDictionary = null;
+    private Function<AggregatedDictionary, PrefixDictionary> prefixDictionary = null;
+    private Function<AggregatedDictionary, SuffixDictionary> suffixDictionary = null;
+    private ProjectVocabulary projectVocabulary = null;
 
     private String separatorCharacters = "$_";
 
@@ -122,6 +152,33 @@ public final class IdentifierNameTokeniserFactory {
 
     private boolean expandModals = false;
 
+    private int tokenPoolCapacity = 0;
+
+    private TokenPool tokenPool = null;
+
+    // the lookup filters are off until set
+    private double lookupFilterRate = 0;
+
+    private long lookupFilterBytes = DEFAULT_LOOKUP_FILTER_BYTES;
+
+    // bounds of the project vocabulary, 0 entries when unbounded
+    private int vocabularyMaximumEntries = 0;
+
+    private long vocabularyMaximumBytes = 0;
+
+    private int vocabularyDecayInterval = 0;
+
+    // additions to the vocabulary are made in batches when greater than 0
+    private int vocabularyBufferWords = 0;
+
+    private long vocabularyBufferDelay = 0;
+
+    // time in nanoseconds after which an unused project's vocabulary is discarded
+    private long projectIdleTimeout = Long.MAX_VALUE;
+
+    // completed when the latest compaction of dictionary updates is done
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture( null );
+
     /**
      * Creates an instance of {@code IdentifierNameTokeniserFactory}.
      *
@@ -132,18 +189,14 @@ public final class IdentifierNameTokeniserFactory {
      * <li>Project vocabulary - empty, and disabled.</li>
      * </ul>
      *
-     * @throws IllegalStateException if the default main dictionary cannot be
-     * created. This is most likely the result of a problem with the jar file.
+     * <p>
+     * The dictionaries are not loaded until they are needed, normally by 
+     * {@link #create()}, so that defaults replaced using the factory's 
+     * methods are never loaded.
+     * </p>
      */
     public IdentifierNameTokeniserFactory () {
-        try {
-            this.dictionarySet = new DictionarySet();
-        }
-        catch ( IOException ioEx ) {
-            ioEx.printStackTrace( System.err );
-            throw new IllegalStateException( 
-                    "Unable to instantiate the default main dictionary.", ioEx );
-        }
+        this( DictionaryConfiguration.DEFAULT );
     }
 
     /**
@@ -156,21 +209,202 @@ public final class IdentifierNameTokeniserFactory {
      * <li>Project vocabulary - empty, and disabled.</li>
      * </ul>
      *
+     * <p>
+     * The dictionaries are not loaded until they are needed, normally by 
+     * {@link #create()}, so that defaults replaced using the factory's 
+     * methods are never loaded.
+     * </p>
+     *
      * @param dc a {@code DictionaryConfiguration}
-     * @throws IllegalStateException if the default main dictionary cannot be
-     * created. This is most likely the result of a problem with the jar file.
      */
     public IdentifierNameTokeniserFactory ( DictionaryConfiguration dc ) {
+        this.configuration = dc;
+        this.dictionaries = new CompletableFuture<>();
+    }
+
+    /**
+     * Creates an instance of {@code IdentifierNameTokeniserFactory} that 
+     * loads the default dictionaries on a background thread. See
+     * {@link #loadInBackground(DictionaryConfiguration)}.
+     *
+     * @return a factory
+     */
+    public static IdentifierNameTokeniserFactory loadInBackground () {
+        return loadInBackground( DictionaryConfiguration.DEFAULT );
+    }
+
+    /**
+     * Creates an instance of {@code IdentifierNameTokeniserFactory} that 
+     * loads the specified dictionaries on a background thread. The method 
+     * returns immediately. Completion of loading is signalled by 
+     * {@link #dictionariesLoaded()}.
+     *
+     * <p>
+     * Until the dictionaries are loaded {@link #create()} and the methods 
+     * that change the dictionaries wait for loading to complete. 
+     * {@link #createWithoutWaiting()} returns a tokeniser that can be used 
+     * immediately.
+     * </p>
+     *
+     * @param dc a {@code DictionaryConfiguration}
+     * @return a factory
+     */
+    public static IdentifierNameTokeniserFactory loadInBackground ( 
+            DictionaryConfiguration dc ) {
+        IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory( dc );
+        factory.startLoading( true );
+        return factory;
+    }
+
+    /**
+     * Provides a signal that the dictionaries are loaded. The future 
+     * completes when the dictionaries have been loaded, whether by 
+     * {@link #create()} or in the background, and completes exceptionally 
+     * if the dictionaries cannot be loaded. By the time the future 
+     * completes, the tokenisers created by {@link #createWithoutWaiting()} 
+     * have switched to full tokenisation.
+     *
+     * @return a future that completes when the dictionaries are loaded
+     */
+    public synchronized CompletableFuture<Void> dictionariesLoaded () {
+        return this.dictionaries.thenCombine( this.upgrades, ( dictionarySet, upgraded ) -> null );
+    }
+
+    // builds the dictionary set from the defaults and any replacements
+    // either in the calling thread or a background thread
+    private synchronized void startLoading ( boolean inBackground ) {
+        if ( this.loadingStarted ) {
+            return;
+        }
+        this.loadingStarted = true;
+        
+        DictionaryConfiguration dc = this.configuration;
+        MainDictionary main = this.mainDictionary;
+        AbbreviationDictionary abbreviations = this.abbreviationDictionary;
+        DigitAbbreviationDictionary digitAbbreviations = this.digitAbbreviationDictionary;
+        Function<AggregatedDictionary, PrefixDictionary> prefixes = this.prefixDictionary;
+        Function<AggregatedDictionary, SuffixDictionary> suffixes = this.suffixDictionary;
+        ProjectVocabulary vocabulary = this.projectVocabulary;
+        double filterRate = this.lookupFilterRate;
+        long filterBytes = this.lookupFilterBytes;
+        int vocabularyEntries = this.vocabularyMaximumEntries;
+        long vocabularyBytes = this.vocabularyMaximumBytes;
+        int vocabularyDecay = this.vocabularyDecayInterval;
+        long idleTimeout = this.projectIdleTimeout;
+        this.mainDictionary = null;
+        this.abbreviationDictionary = null;
+        this.digitAbbreviationDictionary = null;
+        this.prefixDictionary = null;
+        this.suffixDictionary = null;
+        this.projectVocabulary = null;
+        
+        Runnable loader = () -> {
+            try {
+                DictionarySet dictionarySet = new DictionarySet( 
+                        dc, main, abbreviations, digitAbbreviations, 
+                        prefixes, suffixes, vocabulary );
+                if ( vocabularyEntries > 0 ) {
+                    dictionarySet.setProjectVocabularyBounds( 
+                            vocabularyEntries, vocabularyBytes, vocabularyDecay );
+                }
+                if ( filterRate > 0 ) {
+                    dictionarySet.setLookupFilter( filterRate, filterBytes );
+                }
+                dictionarySet.setProjectIdleTimeout( idleTimeout );
+                this.dictionaries.complete( dictionarySet );
+            }
+            catch ( Throwable e ) {
+                this.dictionaries.completeExceptionally( e );
+            }
+        };
+        
+        if ( inBackground ) {
+            Thread thread = new Thread( loader, "intt-dictionary-loader" );
+            thread.setDaemon( true );
+            thread.start();
+        }
+        else {
+            loader.run();
+        }
+    }
+
+    // loads the dictionaries if necessary, waiting if they are being 
+    // loaded in the background
+    private DictionarySet dictionarySet () {
+        startLoading( false );
         try {
-            this.dictionarySet = new DictionarySet( dc );
+            return this.dictionaries.join();
         }
-        catch ( IOException ioEx ) {
-            ioEx.printStackTrace( System.err );
+        catch ( CompletionException e ) {
             throw new IllegalStateException( 
                     String.format( 
                             "Unable to instantiate the \'%s\' dictionary.", 
-                            dc.identity() ), 
-                    ioEx );
+                            this.configuration.identity() ), 
+                    e.getCause() );
+        }
+    }
+
+    // the replace methods record a replacement until the dictionary set 
+    // is built, and then change the dictionary set
+    private synchronized void replaceMainDictionary ( MainDictionary dictionary ) {
+        if ( this.loadingStarted ) {
+            dictionarySet().setMainDictionary( dictionary );
+        }
+        else {
+            this.mainDictionary = dictionary;
+        }
+    }
+
+    private synchronized void replaceAbbreviationDictionary ( 
+            AbbreviationDictionary dictionary ) {
+        if ( this.loadingStarted ) {
+            dictionarySet().setAbbreviationDictionary( dictionary );
+        }
+        else {
+            this.abbreviationDictionary = dictionary;
+        }
+    }
+
+    private synchronized void replaceDigitAbbreviationDictionary ( 
+            DigitAbbreviationDictionary dictionary ) {
+        if ( this.loadingStarted ) {
+            dictionarySet().setDigitAbbreviationDictionary( dictionary );
+        }
+        else {
+            this.digitAbbreviationDictionary = dictionary;
+        }
+    }
+
+    private synchronized void replacePrefixDictionary ( 
+            Function<AggregatedDictionary, PrefixDictionary> dictionary ) {
+        if ( this.loadingStarted ) {
+            DictionarySet dictionarySet = dictionarySet();
+            dictionarySet.setPrefixDictionary( 
+                    dictionary.apply( dictionarySet.getAggregatedDictionary() ) );
+        }
+        else {
+            this.prefixDictionary = dictionary;
+        }
+    }
+
+    private synchronized void replaceSuffixDictionary ( 
+            Function<AggregatedDictionary, SuffixDictionary> dictionary ) {
+        if ( this.loadingStarted ) {
+            DictionarySet dictionarySet = dictionarySet();
+            dictionarySet.setSuffixDictionary( 
+                    dictionary.apply( dictionarySet.getAggregatedDictionary() ) );
+        }
+        else {
+            this.suffixDictionary = dictionary;
+        }
+    }
+
+    private synchronized void replaceProjectVocabulary ( ProjectVocabulary vocabulary ) {
+        if ( this.loadingStarted ) {
+            dictionarySet().setProjectVocabulary( vocabulary );
+        }
+        else {
+            this.projectVocabulary = vocabulary;
         }
     }
 
@@ -241,7 +475,7 @@ public final class IdentifierNameTokeniserFactory {
             throw new IllegalArgumentException( "Null source for main dictionary" );
         }
 
-        this.dictionarySet.setMainDictionary( new MainDictionary( source ) );
+        replaceMainDictionary( new MainDictionary( source ) );
     }
 
     /**
@@ -264,7 +498,50 @@ public final class IdentifierNameTokeniserFactory {
                     "Null source for main dictionary" );
         }
 
-        this.dictionarySet.setMainDictionary( new MainDictionary( source, name ) );
+        replaceMainDictionary( new MainDictionary( source, name ) );
+    }
+
+    /**
+     * Sets the files used as a replacement for the main dictionary. Each
+     * file should consist of one word per line, encoded as UTF-8, and may
+     * be compressed with gzip. Each file is loaded as a separate word list
+     * tagged with the file name, and large files are parsed in parallel.
+     *
+     * @param paths a list of paths to word list files
+     * @throws IOException if any of the files cannot be read
+     * @throws IllegalArgumentException if a {@code null} argument or an
+     * empty list is passed to the method.
+     */
+    public void setMainDictionarySource ( List<Path> paths ) throws IOException {
+        if ( paths == null || paths.isEmpty() ) {
+            throw new IllegalArgumentException(
+                    "Null or empty list of paths for main dictionary" );
+        }
+
+        replaceMainDictionary( new MainDictionary( WordListLoader.load( paths ) ) );
+    }
+
+    /**
+     * Sets the files used as a replacement for the main dictionary. Each
+     * file should consist of one word per line, encoded as UTF-8, and may
+     * be compressed with gzip.
+     *
+     * @param paths a list of paths to word list files
+     * @param name  a {@code String} used to identify the dictionary.
+     *              Output by the {@link #toString()} method.
+     * @throws IOException if any of the files cannot be read
+     * @throws IllegalArgumentException if a {@code null} argument or an
+     * empty list is passed to the method.
+     */
+    public void setMainDictionarySource ( List<Path> paths, String name )
+            throws IOException {
+        if ( paths == null || paths.isEmpty() ) {
+            throw new IllegalArgumentException(
+                    "Null or empty list of paths for main dictionary" );
+        }
+
+        replaceMainDictionary(
+                new MainDictionary( WordListLoader.load( paths ), name ) );
     }
 
     /**
@@ -282,10 +559,10 @@ public final class IdentifierNameTokeniserFactory {
                     "Null or zero length prefix source list" );
         }
 
-        this.dictionarySet.setPrefixDictionary( 
-                new PrefixDictionary( 
+        replacePrefixDictionary( 
+                aggregatedDictionary -> new PrefixDictionary( 
                         prefixes, 
-                        this.dictionarySet.getAggregatedDictionary() ) );
+                        aggregatedDictionary ) );
     }
 
     /**
@@ -305,10 +582,10 @@ public final class IdentifierNameTokeniserFactory {
                     "Null or zero length prefix source array" );
         }
 
-        this.dictionarySet.setPrefixDictionary( 
-                new PrefixDictionary( 
+        replacePrefixDictionary( 
+                aggregatedDictionary -> new PrefixDictionary( 
                         prefixes, 
-                        this.dictionarySet.getAggregatedDictionary(), 
+                        aggregatedDictionary, 
                         name ) );
     }
 
@@ -327,10 +604,10 @@ public final class IdentifierNameTokeniserFactory {
                     "Null or zero length suffix source list" );
         }
 
-        this.dictionarySet.setSuffixDictionary( 
-                new SuffixDictionary( 
+        replaceSuffixDictionary( 
+                aggregatedDictionary -> new SuffixDictionary( 
                         suffixes, 
-                        this.dictionarySet.getAggregatedDictionary() ) );
+                        aggregatedDictionary ) );
     }
 
     /**
@@ -350,10 +627,10 @@ public final class IdentifierNameTokeniserFactory {
                     "Null or zero length suffix source array" );
         }
 
-        this.dictionarySet.setSuffixDictionary( 
-                new SuffixDictionary( 
+        replaceSuffixDictionary( 
+                aggregatedDictionary -> new SuffixDictionary( 
                         suffixes, 
-                        this.dictionarySet.getAggregatedDictionary(), 
+                        aggregatedDictionary, 
                         name ) );
     }
 
@@ -382,7 +659,7 @@ public final class IdentifierNameTokeniserFactory {
             }
         }
 
-        this.dictionarySet.setDigitAbbreviationDictionary( 
+        replaceDigitAbbreviationDictionary( 
                 new DigitAbbreviationDictionary( digitAbbreviations ) );
     }
 
@@ -415,7 +692,7 @@ public final class IdentifierNameTokeniserFactory {
             }
         }
 
-        this.dictionarySet.setDigitAbbreviationDictionary( 
+        replaceDigitAbbreviationDictionary( 
                 new DigitAbbreviationDictionary( digitAbbreviations, name ) );
     }
 
@@ -434,7 +711,7 @@ public final class IdentifierNameTokeniserFactory {
                     "Null or empty abbreviation list" );
         }
 
-        this.dictionarySet.setAbbreviationDictionary( 
+        replaceAbbreviationDictionary( 
                 new AbbreviationDictionary( abbreviations ) );
     }
 
@@ -455,7 +732,7 @@ public final class IdentifierNameTokeniserFactory {
                     "Null or empty abbreviation list" );
         }
 
-        this.dictionarySet.setAbbreviationDictionary( new AbbreviationDictionary( abbreviations, name ) );
+        replaceAbbreviationDictionary( new AbbreviationDictionary( abbreviations, name ) );
     }
 
     /**
@@ -478,7 +755,41 @@ public final class IdentifierNameTokeniserFactory {
             throw new IllegalArgumentException( "Null or empty vocabulary source list" );
         }
 
-        this.dictionarySet.setProjectVocabulary( new ProjectVocabulary( vocabulary ) );
+        replaceProjectVocabulary( new ProjectVocabulary( vocabulary ) );
+    }
+
+    /**
+     * Replaces the project vocabulary with one restored from a snapshot
+     * written by {@link #saveProjectVocabulary(Path)}. Restoring the
+     * vocabulary of an earlier run over the same project means that single
+     * case names are split with the vocabulary already learned, rather
+     * than with one that depends on the order in which names are
+     * tokenised.
+     *
+     * @param snapshot the path of a snapshot file
+     * @throws IOException if the snapshot cannot be read
+     * @throws IllegalArgumentException if a {@code null} argument is
+     * passed to the method.
+     */
+    public void setProjectVocabularySnapshot ( Path snapshot ) throws IOException {
+        if ( snapshot == null ) {
+            throw new IllegalArgumentException( "Null project vocabulary snapshot" );
+        }
+
+        replaceProjectVocabulary( ProjectVocabulary.load( snapshot ) );
+    }
+
+    /**
+     * Writes the words in the project vocabulary, and the number of times
+     * each has been added, to a compact binary snapshot file that can be
+     * restored with {@link #setProjectVocabularySnapshot(Path)}. The
+     * vocabulary is shared by all the tokenisers created by the factory.
+     *
+     * @param snapshot the path of the snapshot file to write
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveProjectVocabulary ( Path snapshot ) throws IOException {
+        dictionarySet().getProjectVocabulary().save( snapshot );
     }
 
     /**
@@ -528,26 +839,435 @@ public final class IdentifierNameTokeniserFactory {
         this.expandModals = false;
     }
 
+    /**
+     * Configures the tokenisers created by the factory to return shared
+     * instances of tokens. A single {@link TokenPool}, seeded with the 
+     * entries of the main and abbreviation dictionaries, is created when the 
+     * first tokeniser is created and is shared by all the tokenisers 
+     * subsequently created by the factory. Pooling reduces the heap retained
+     * by large collections of tokenised names where the same tokens occur
+     * repeatedly. Pooling is off by default.
+     *
+     * @param capacity the maximum number of tokens not found in the 
+     * dictionaries to be pooled
+     * 
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public synchronized void setTokenPoolingOn ( int capacity ) {
+        if ( capacity <= 0 ) {
+            throw new IllegalArgumentException( 
+                    "Token pool capacity must be positive" );
+        }
+        this.tokenPoolCapacity = capacity;
+        this.tokenPool = null;
+    }
+
+    /**
+     * Configures the tokenisers created by the factory to return tokens 
+     * from the supplied pool, which may be shared with tokenisers created 
+     * by other factories.
+     *
+     * @param pool a token pool
+     * 
+     * @throws IllegalArgumentException if the argument is {@code null}
+     */
+    public synchronized void setTokenPool ( TokenPool pool ) {
+        if ( pool == null ) {
+            throw new IllegalArgumentException( "Null token pool" );
+        }
+        this.tokenPoolCapacity = pool.capacity();
+        this.tokenPool = pool;
+    }
+
+    /**
+     * Turns off token pooling. This is the default behaviour.
+     */
+    public synchronized void setTokenPoolingOff () {
+        this.tokenPoolCapacity = 0;
+        this.tokenPool = null;
+    }
+
+    /**
+     * Bounds the size of the project vocabulary, which otherwise grows with
+     * every new word added during tokenisation. When either bound is 
+     * exceeded, the words added least often and least recently are 
+     * evicted.
+     *
+     * @param maximumEntries the most words the project vocabulary may hold
+     * @param maximumBytes the most memory the words may use. The memory
+     * used by each word is estimated.
+     * @throws IllegalArgumentException if either bound is less than 1
+     */
+    public void setProjectVocabularyBounds ( int maximumEntries, long maximumBytes ) {
+        setProjectVocabularyBounds( maximumEntries, maximumBytes, 0 );
+    }
+
+    /**
+     * Bounds the size of the project vocabulary, which otherwise grows with
+     * every new word added during tokenisation. When either bound is 
+     * exceeded, the words added least often and least recently are 
+     * evicted. The counts of additions are halved each time the given 
+     * number of words has been added, so that the vocabulary favours the 
+     * words used in recently tokenised names.
+     *
+     * @param maximumEntries the most words the project vocabulary may hold
+     * @param maximumBytes the most memory the words may use. The memory
+     * used by each word is estimated.
+     * @param decayInterval the number of additions after which the counts
+     * are halved, or 0 for no aging
+     * @throws IllegalArgumentException if either bound is less than 1 or 
+     * the interval is negative
+     */
+    public synchronized void setProjectVocabularyBounds ( 
+            int maximumEntries, long maximumBytes, int decayInterval ) {
+        if ( maximumEntries < 1 || maximumBytes < 1 || decayInterval < 0 ) {
+            throw new IllegalArgumentException( 
+                    "Invalid bounds for the project vocabulary" );
+        }
+        this.vocabularyMaximumEntries = maximumEntries;
+        this.vocabularyMaximumBytes = maximumBytes;
+        this.vocabularyDecayInterval = decayInterval;
+        if ( this.loadingStarted ) {
+            dictionarySet().setProjectVocabularyBounds( 
+                    maximumEntries, maximumBytes, decayInterval );
+        }
+    }
+
+    /**
+     * Configures the tokenisers subsequently created by the factory to add 
+     * words to the project vocabulary in batches. Each tokeniser holds the 
+     * words it finds and adds them together, taking the vocabulary's lock 
+     * once, when it holds the given number of words or when a name is 
+     * tokenised after the first word has been held for the given time. 
+     * Words held by a tokeniser are not visible to any tokeniser, 
+     * including itself, until they are added. 
+     * {@link IdentifierNameTokeniser#flushVocabulary()} adds the words 
+     * held immediately. By default each word is added as it is found.
+     *
+     * @param maximumWords the most words a tokeniser holds
+     * @param maximumDelay the longest time a word is held, measured when 
+     * names are tokenised
+     * @param unit the unit of the delay
+     * @throws IllegalArgumentException if the number of words is less than
+     * 1 or the delay is negative
+     */
+    public synchronized void setVocabularyBuffering ( 
+            int maximumWords, long maximumDelay, TimeUnit unit ) {
+        if ( maximumWords < 1 || maximumDelay < 0 ) {
+            throw new IllegalArgumentException( 
+                    "Invalid settings for vocabulary buffering" );
+        }
+        this.vocabularyBufferWords = maximumWords;
+        this.vocabularyBufferDelay = unit.toNanos( maximumDelay );
+    }
+
+    /**
+     * Configures the tokenisers subsequently created by the factory to add
+     * each word to the project vocabulary as it is found, which is the 
+     * default.
+     */
+    public synchronized void setVocabularyBufferingOff () {
+        this.vocabularyBufferWords = 0;
+        this.vocabularyBufferDelay = 0;
+    }
+
+    /**
+     * Sets the time after which the vocabulary of a project, created by
+     * {@link #createForProject(String)}, is discarded if it has not been 
+     * used. A vocabulary is used when a tokeniser is created for the 
+     * project or a tokeniser adds a word to it. Idle vocabularies are 
+     * discarded when a tokeniser is next created for any project, but a 
+     * vocabulary still used by a tokeniser is given to any new tokeniser 
+     * for the project rather than replaced. By default project 
+     * vocabularies are kept until they are released.
+     *
+     * @param timeout the idle time after which a vocabulary is discarded
+     * @param unit the unit of the timeout
+     * @throws IllegalArgumentException if the timeout is negative
+     */
+    public synchronized void setProjectIdleTimeout ( long timeout, TimeUnit unit ) {
+        if ( timeout < 0 ) {
+            throw new IllegalArgumentException( "Negative idle timeout" );
+        }
+        this.projectIdleTimeout = unit.toNanos( timeout );
+        if ( this.loadingStarted ) {
+            dictionarySet().setProjectIdleTimeout( this.projectIdleTimeout );
+        }
+    }
+
+    /**
+     * Discards the vocabulary of a project, so that tokenisers created 
+     * subsequently for the project start with an empty vocabulary. 
+     * Tokenisers already created for the project keep the old vocabulary.
+     *
+     * @param projectId identifies the project
+     * @return {@code true} if the project had a vocabulary
+     */
+    public boolean releaseProject ( String projectId ) {
+        return dictionarySet().removeProjectVocabulary( projectId );
+    }
+
+    /**
+     * Adds words to and removes words from the dictionaries used by the 
+     * tokenisers created by the factory, including tokenisers already 
+     * created, without rebuilding the dictionaries. Updates are intended 
+     * for small, frequent changes, such as new abbreviations or technical 
+     * terms, and take effect for each tokeniser from the next name it 
+     * tokenises. Words added are tagged "update".
+     *
+     * <p>
+     * Updates are held in a small overlay consulted before the 
+     * dictionaries. When many words have been added or removed they are 
+     * compacted, on a background thread: additions into a word list of the
+     * main dictionary that shares the existing lists, and removals into a 
+     * set of exclusions, so the dictionaries are not copied.
+     * </p>
+     *
+     * @param additions words to add
+     * @param removals words to remove; a word in both collections is removed
+     */
+    public synchronized void updateDictionaries ( 
+            Collection<String> additions, Collection<String> removals ) {
+        int pending = dictionarySet().updateWords( additions, removals );
+        if ( pending >= COMPACTION_THRESHOLD ) {
+            compactDictionaryUpdates();
+        }
+    }
+
+    /**
+     * Starts the compaction of the words added and removed by 
+     * {@link #updateDictionaries(Collection, Collection)} into the 
+     * dictionaries on a background thread, unless a compaction is already
+     * running. Tokenisation continues during compaction.
+     *
+     * @return a future completed when the compaction is done
+     */
+    public synchronized CompletableFuture<Void> compactDictionaryUpdates () {
+        if ( ! this.compaction.isDone() ) {
+            return this.compaction;
+        }
+        DictionarySet dictionarySet = dictionarySet();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = new Thread( () -> {
+            try {
+                dictionarySet.compactUpdates();
+                done.complete( null );
+            }
+            catch ( Throwable e ) {
+                done.completeExceptionally( e );
+            }
+        }, "intt-dictionary-compactor" );
+        thread.setDaemon( true );
+        thread.start();
+        this.compaction = done;
+        return done;
+    }
+
+    /**
+     * Removes the bounds from the project vocabulary, which is the default.
+     */
+    public synchronized void setProjectVocabularyUnbounded () {
+        this.vocabularyMaximumEntries = 0;
+        if ( this.loadingStarted ) {
+            dictionarySet().setProjectVocabularyUnbounded();
+        }
+    }
+
+    /**
+     * Sets the Bloom filters placed in front of the lookups of the 
+     * dictionaries and the project vocabulary. Most candidate words tested 
+     * when splitting single case names are not words, and the filters 
+     * reject them with a single memory access rather than a probe of each
+     * dictionary. Filters never reject a known word, so the tokenisation 
+     * is unchanged. The filters are off by default; a false positive rate
+     * of 1% and a budget of 4MB each suit the default dictionaries.
+     *
+     * @param falsePositiveRate the desired rate of unknown words that 
+     * pass the filters, greater than 0 and less than 1
+     * @param maximumBytes the most memory each filter may use. The false
+     * positive rate is higher if the budget is too small to meet it.
+     * @throws IllegalArgumentException if the rate is out of range or the
+     * budget is less than 64 bytes
+     */
+    public synchronized void setLookupFilter ( double falsePositiveRate, long maximumBytes ) {
+        if ( ! ( falsePositiveRate > 0 && falsePositiveRate < 1 ) ) {
+            throw new IllegalArgumentException( 
+                    "False positive rate must be between 0 and 1" );
+        }
+        if ( maximumBytes < 64 ) {
+            throw new IllegalArgumentException( 
+                    "Lookup filter memory budget must be at least 64 bytes" );
+        }
+        this.lookupFilterRate = falsePositiveRate;
+        this.lookupFilterBytes = maximumBytes;
+        if ( this.loadingStarted ) {
+            dictionarySet().setLookupFilter( falsePositiveRate, maximumBytes );
+        }
+    }
+
+    /**
+     * Removes the Bloom filters from the lookups of the dictionaries and the
+     * project vocabulary.
+     */
+    public synchronized void setLookupFilterOff () {
+        this.lookupFilterRate = 0;
+        if ( this.loadingStarted ) {
+            dictionarySet().setLookupFilterOff();
+        }
+    }
+
+    /**
+     * Releases this factory's reference to the default word lists of its
+     * configuration. The word lists are shared by all the factories in the
+     * JVM, and are loaded once and kept while any factory using them has
+     * not been released. Tokenisers already created by this factory
+     * continue to work, and the word lists can be reclaimed once they are
+     * no longer used. The factory should not be used after it is released.
+     */
+    public synchronized void release () {
+        if ( this.loadingStarted ) {
+            this.dictionaries.thenAccept( DictionarySet::release );
+        }
+    }
+
+    /**
+     * Creates a table for converting tokens to integer ids, for use with
+     * {@link IdentifierNameTokeniser#tokeniseToIds(String, TokenIdTable)}. 
+     * The entries of the main and abbreviation dictionaries are assigned 
+     * stable ids, so tables created from the same dictionaries agree on 
+     * the ids of known words.
+     *
+     * @return a token id table seeded with the dictionary entries
+     */
+    public TokenIdTable createTokenIdTable () {
+        List<String> seeds = new ArrayList<>();
+        dictionarySet().getAggregatedDictionary().forEachWord( seeds::add );
+        return new TokenIdTable( seeds );
+    }
+
     /**
      * Creates a new instance of {@code IdentifierNameTokeniser} using the 
-     * current state of the IdentifierNameTokeniserFactory.
+     * current state of the IdentifierNameTokeniserFactory. The dictionaries
+     * are loaded by the first call, or by a background thread if
+     * loading has already started.
      *
      * @return an instance of IdentifierNameTokeniser.
+     * @throws IllegalStateException if the dictionaries cannot be
+     * created. This is most likely the result of a problem with the jar file.
      */
     public IdentifierNameTokeniser create () {
+        DictionarySet dictionarySet = dictionarySet();
 
         // check that we can instantiate
-        if ( this.dictionarySet.hasNullComponent() == true ) {
+        if ( dictionarySet.hasNullComponent() == true ) {
+            throw new IllegalStateException( 
+                    "At least one oracle has a null reference" );
+        }
+
+        IdentifierNameTokeniser tokeniser = new IdentifierNameTokeniser(
+                dictionarySet,
+                this.separatorCharacters,
+                this.projectVocabularyThreshold,
+                this.recursiveSplit,
+                this.expandModals,
+                tokenPool( dictionarySet ) );
+        configureVocabularyBuffer( tokeniser );
+        return tokeniser;
+    }
+
+    /**
+     * Creates a new instance of {@code IdentifierNameTokeniser} for a 
+     * project. The tokeniser shares the dictionaries of the factory with 
+     * all its other tokenisers, but learns and reads a project vocabulary 
+     * kept for the project alone, so that names from one project do not 
+     * change how names from another are split. All the tokenisers created 
+     * for the same project share its vocabulary. Project vocabularies start 
+     * empty and are bounded and filtered in the same way as the shared 
+     * project vocabulary, so each project's memory is capped by 
+     * {@link #setProjectVocabularyBounds(int, long)}.
+     *
+     * @param projectId identifies the project
+     * @return an instance of IdentifierNameTokeniser.
+     * @throws IllegalArgumentException if the project identifier is 
+     * {@code null}
+     * @throws IllegalStateException if the dictionaries cannot be
+     * created.
+     */
+    public IdentifierNameTokeniser createForProject ( String projectId ) {
+        if ( projectId == null ) {
+            throw new IllegalArgumentException( "Null project identifier" );
+        }
+        DictionarySet dictionarySet = dictionarySet();
+        if ( dictionarySet.hasNullComponent() == true ) {
             throw new IllegalStateException( 
                     "At least one oracle has a null reference" );
         }
 
-        return new IdentifierNameTokeniser(
-                this.dictionarySet,
+        IdentifierNameTokeniser tokeniser = new IdentifierNameTokeniser(
+                this.separatorCharacters,
+                this.projectVocabularyThreshold,
+                this.recursiveSplit,
+                this.expandModals );
+        tokeniser.install( 
+                dictionarySet, 
+                dictionarySet.getProjectVocabulary( projectId ), 
+                tokenPool( dictionarySet ) );
+        configureVocabularyBuffer( tokeniser );
+        return tokeniser;
+    }
+
+    /**
+     * Creates a new instance of {@code IdentifierNameTokeniser} using the 
+     * current state of the IdentifierNameTokeniserFactory without waiting 
+     * for the dictionaries to be loaded. Until the dictionaries are loaded
+     * the tokeniser applies naive tokenisation to every name, and then 
+     * switches to full tokenisation. If the dictionaries cannot be loaded 
+     * the tokeniser continues to apply naive tokenisation and the future 
+     * returned by {@link #dictionariesLoaded()} completes exceptionally.
+     * If the dictionaries have not started loading, loading is started on a 
+     * background thread.
+     *
+     * @return an instance of IdentifierNameTokeniser.
+     */
+    public IdentifierNameTokeniser createWithoutWaiting () {
+        startLoading( true );
+        if ( this.dictionaries.isDone() 
+                && ! this.dictionaries.isCompletedExceptionally() ) {
+            return create();
+        }
+        
+        IdentifierNameTokeniser tokeniser = new IdentifierNameTokeniser(
                 this.separatorCharacters,
                 this.projectVocabularyThreshold,
                 this.recursiveSplit,
                 this.expandModals );
+        configureVocabularyBuffer( tokeniser );
+        CompletableFuture<Void> upgrade = this.dictionaries.thenAccept( dictionarySet -> {
+            if ( ! dictionarySet.hasNullComponent() ) {
+                tokeniser.install( dictionarySet, tokenPool( dictionarySet ) );
+            }
+        } );
+        synchronized ( this ) {
+            this.upgrades = CompletableFuture.allOf( this.upgrades, upgrade );
+        }
+        return tokeniser;
+    }
+
+    private synchronized void configureVocabularyBuffer ( IdentifierNameTokeniser tokeniser ) {
+        if ( this.vocabularyBufferWords > 0 ) {
+            tokeniser.setVocabularyBuffer( 
+                    this.vocabularyBufferWords, this.vocabularyBufferDelay );
+        }
+    }
+
+    // the pool is created once and shared by all the tokenisers
+    private synchronized TokenPool tokenPool ( DictionarySet dictionarySet ) {
+        if ( this.tokenPoolCapacity > 0 && this.tokenPool == null ) {
+            List<String> seeds = new ArrayList<>();
+            dictionarySet.getAggregatedDictionary().forEachWord( seeds::add );
+            this.tokenPool = new TokenPool( this.tokenPoolCapacity, seeds );
+        }
+        return this.tokenPool;
     }
 
     /**
@@ -568,10 +1288,27 @@ public final class IdentifierNameTokeniserFactory {
      * Separator-character-set:cardinality=2, members={$, _};<br>
      * Recursive-split:false;<br>
      * Expand-modals: false;<br>
+     * Token-pool:capacity=0;<br>
+     * Lookup-filter:false-positive-rate=0.0, maximum-bytes=4194304;<br>
      * Opcode-Dictionary:name=Empty, entries=0;<br>
      * </code>
      * </p>
      *
+     * <p>
+     * The dictionaries are reported only once they have been loaded; 
+     * calling this method never starts or waits for loading. Until then,
+     * or if loading failed, the five dictionary lines are replaced by one:
+     * </p>
+     *
+     * <p>
+     * <code>
+     * Library:name=intt, version=0.8.0<br>
+     * Dictionaries:not loaded<br>
+     * Project-vocabulary:threshold=-1;<br>
+     * ...
+     * </code>
+     * </p>
+     *
      * @return a formatted {@code String} containing the current state
      * of the {@code IdentifierNameTokeniserFactory}
      */
@@ -586,29 +1323,49 @@ public final class IdentifierNameTokeniserFactory {
         output.append( Version.getVersion() );
         output.append( newLine );
 
-        output.append( "Main-dictionary:" );
-        output.append( this.dictionarySet.getMainDictionary().toString() );
-        output.append( newLine );
+        // reporting the dictionaries must not start loading them
+        if ( this.dictionaries.isDone() && ! this.dictionaries.isCompletedExceptionally() ) {
+            DictionarySet dictionarySet = this.dictionaries.join();
+            output.append( "Main-dictionary:" );
+            output.append( dictionarySet.getMainDictionary().toString() );
+            output.append( newLine );
 
-        output.append( "Abbreviation-dictionary:" );
-        output.append( this.dictionarySet.getAbbreviationDictionary().toString() );
-        output.append( newLine );
+            output.append( "Abbreviation-dictionary:" );
+            output.append( dictionarySet.getAbbreviationDictionary().toString() );
+            output.append( newLine );
 
-        output.append( "Digit-Abbreviation-dictionary:" );
-        output.append( this.dictionarySet.getDigitAbbreviationDictionary().toString() );
-        output.append( newLine );
+            output.append( "Digit-Abbreviation-dictionary:" );
+            output.append( dictionarySet.getDigitAbbreviationDictionary().toString() );
+            output.append( newLine );
 
-        output.append( "Prefix-dictionary:" );
-        output.append( this.dictionarySet.getPrefixDictionary().toString() );
-        output.append( newLine );
+            output.append( "Prefix-dictionary:" );
+            output.append( dictionarySet.getPrefixDictionary().toString() );
+            output.append( newLine );
 
-        output.append( "Suffix-dictionary:" );
-        output.append( this.dictionarySet.getSuffixDictionary().toString() );
-        output.append( newLine );
+            output.append( "Suffix-dictionary:" );
+            output.append( dictionarySet.getSuffixDictionary().toString() );
+            output.append( newLine );
+        }
+        else {
+            output.append( "Dictionaries:not loaded" );
+            output.append( newLine );
+        }
 
         output.append( "Project-vocabulary:" );
         output.append( "threshold=" );
         output.append( this.projectVocabularyThreshold );
+        if ( this.vocabularyMaximumEntries > 0 ) {
+            output.append( ", maximum-entries=" );
+            output.append( this.vocabularyMaximumEntries );
+            output.append( ", maximum-bytes=" );
+            output.append( this.vocabularyMaximumBytes );
+        }
+        if ( this.vocabularyBufferWords > 0 ) {
+            output.append( ", buffer-words=" );
+            output.append( this.vocabularyBufferWords );
+            output.append( ", buffer-delay-ms=" );
+            output.append( TimeUnit.NANOSECONDS.toMillis( this.vocabularyBufferDelay ) );
+        }
         output.append( ";" );
         output.append( newLine );
 
@@ -635,6 +1392,20 @@ public final class IdentifierNameTokeniserFactory {
         output.append( ";" );
         output.append( newLine );
 
+        output.append( "Token-pool:" );
+        output.append( "capacity=" );
+        output.append( this.tokenPoolCapacity );
+        output.append( ";" );
+        output.append( newLine );
+
+        output.append( "Lookup-filter:" );
+        output.append( "false-positive-rate=" );
+        output.append( this.lookupFilterRate );
+        output.append( ", maximum-bytes=" );
+        output.append( this.lookupFilterBytes );
+        output.append( ";" );
+        output.append( newLine );
+
         return output.toString();
     }
 }
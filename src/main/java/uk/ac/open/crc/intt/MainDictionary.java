@@ -20,14 +20,25 @@ package uk.ac.open.crc.intt;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.ac.open.crc.intt.text.WordList;
 import uk.ac.open.crc.intt.text.WordListReader;
+import uk.ac.open.crc.intt.text.WordSet;
+
+import nu.floss.wordlists.Wordlist;
+import nu.floss.wordlists.Wordlists;
 
 /**
  * Provides the main dictionary of words for intt.
@@ -40,9 +51,6 @@ class MainDictionary implements Dictionary {
 
     private final int INITIAL_CAPACITY = 120_000;
 
-    @Deprecated
-    private HashSet<String> dictionary;
-    
     private List<WordList> wordLists;
 
     /**
@@ -60,18 +68,22 @@ class MainDictionary implements Dictionary {
      */
     MainDictionary ( BufferedReader in ) 
             throws IOException, FileNotFoundException {
-        Set<String> set = new HashSet<>( INITIAL_CAPACITY );
+        WordSet set = new WordSet( INITIAL_CAPACITY );
         String line;
 
         while ( ( line = in.readLine() ) != null ) {
-            set.add( line.trim().toLowerCase() );
+            String word = line.trim();
+            if ( ! word.isEmpty() ) {
+                set.add( word );
+            }
         }
 
         in.close();
         
-        this.wordLists.add( new WordList("user-defined", set ) );
+        this.wordLists = new ArrayList<>();
+        this.wordLists.add( new WordList( "user-defined", set ) );
         
-        if ( this.dictionary.isEmpty() ) {
+        if ( set.isEmpty() ) {
             LOGGER.warn( "Main dictionary is empty" );
         }
     }
@@ -108,12 +120,12 @@ class MainDictionary implements Dictionary {
      * @throws FileNotFoundException
      */
     MainDictionary ( String pathToFile ) {
-        WordListReader reader = new WordListReader( pathToFile );
-        List<String> wordList = reader.asLowerCaseList();
+        WordSet set = WordListReader.readWordSet( pathToFile );
         
-        this.dictionary = new HashSet<>( wordList );
+        this.wordLists = new ArrayList<>();
+        this.wordLists.add( new WordList( "user-defined", set ) );
         
-        if ( this.dictionary.isEmpty() ) {
+        if ( set.isEmpty() ) {
             LOGGER.warn( "Main dictionary is empty" );
         }
     }
@@ -161,6 +173,16 @@ class MainDictionary implements Dictionary {
         this.wordLists = wordLists;
     }
     
+    /**
+     * Creates a single named dictionary from multiple word lists.
+     * @param wordLists a list of word lists
+     * @param name a name for the dictionary
+     */
+    MainDictionary( List<WordList> wordLists, String name ) {
+        this( wordLists );
+        this.name = name;
+    }
+    
     /**
      * Creates a single named dictionary from multiple word lists.
      * @param paths a list of file paths
@@ -178,7 +200,110 @@ class MainDictionary implements Dictionary {
     
     @Deprecated
     MainDictionary( HashSet<String> dictionary ) {
-	this.dictionary = dictionary;
+	this.wordLists = new ArrayList<>();
+	this.wordLists.add( new WordList( "user-defined", dictionary ) );
+    }
+    
+    /**
+     * Creates a dictionary that shares this dictionary's word lists and 
+     * adds a word list of updates. The shared lists are not copied.
+     *
+     * <p>
+     * The updates are held in a series of lists, each more than twice the 
+     * size of the next. The most recent lists are merged with the 
+     * additions only while they are no more than twice the size of the 
+     * merged list, so a word is copied a logarithmic number of times 
+     * rather than at every compaction. Removed words are left out of the
+     * merged list; removed words in the earlier lists stay there and must
+     * be excluded by the caller.
+     * </p>
+     *
+     * @param additions words to add to the lists of updates
+     * @param removals words to leave out of the merged list of updates
+     * @return a new dictionary with the same name
+     */
+    MainDictionary withUpdates( List<String> additions, List<String> removals ) {
+        List<WordList> lists = new ArrayList<>( this.wordLists );
+        WordSet updates = new WordSet( additions );
+        int last = lists.size() - 1;
+        while ( last >= 0 
+                && DictionaryOverlay.TAG.equals( lists.get( last ).tag() )
+                && lists.get( last ).size() <= 2 * updates.size() ) {
+            lists.remove( last ).forEach( updates::add );
+            last--;
+        }
+
+        // words already in an earlier list of updates are not repeated
+        List<WordList> earlier = new ArrayList<>();
+        lists.stream()
+                .filter( w -> DictionaryOverlay.TAG.equals( w.tag() ) )
+                .forEach( earlier::add );
+        WordSet removed = new WordSet( removals );
+        WordSet retained = new WordSet( updates.size() );
+        updates.forEach( word -> {
+            if ( ! removed.contains( word ) 
+                    && earlier.stream().noneMatch( w -> w.isWord( word ) ) ) {
+                retained.add( word );
+            }
+        } );
+        if ( ! retained.isEmpty() ) {
+            lists.add( new WordList( DictionaryOverlay.TAG, retained ) );
+        }
+        return new MainDictionary( lists, this.name );
+    }
+    
+    /**
+     * Loads and indexes the supplied word lists concurrently, one task per 
+     * list, so that the time taken is bounded by the largest list rather 
+     * than the total size of the lists.
+     *
+     * @param lists the word lists to load
+     * @return a list of word lists in the order supplied
+     * @throws IOException if any of the word lists cannot be read
+     */
+    static List<WordList> loadWordLists( Wordlists... lists ) throws IOException {
+        int threads = Math.max( 1, 
+                Math.min( lists.length, Runtime.getRuntime().availableProcessors() ) );
+        ExecutorService executor = Executors.newFixedThreadPool( threads, task -> {
+            Thread thread = new Thread( task, "intt-wordlist-loader" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        
+        try {
+            List<Future<WordList>> loaders = new ArrayList<>( lists.length );
+            for ( Wordlists list : lists ) {
+                Callable<WordList> loader = 
+                        () -> new WordList( list.tag(), new Wordlist( list, true ).list() );
+                loaders.add( executor.submit( loader ) );
+            }
+            
+            List<WordList> wordLists = new ArrayList<>( lists.length );
+            for ( Future<WordList> loader : loaders ) {
+                wordLists.add( loader.get() );
+            }
+            return wordLists;
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted loading word lists" );
+        }
+        catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new IOException( "Unable to load word list", cause );
+        }
+        finally {
+            executor.shutdownNow();
+        }
     }
     
     /**
@@ -189,7 +314,7 @@ class MainDictionary implements Dictionary {
      * @return {@code true} if the argument is a dictionary word
      */
     @Override
-    public synchronized boolean isWord ( String token ) {
+    public boolean isWord ( String token ) {
         for ( WordList w : this.wordLists ) {
             if ( w.isWord(token) ) {
                 return true;
@@ -199,6 +324,46 @@ class MainDictionary implements Dictionary {
         //return dictionary.contains( token.toLowerCase() );
     }
 
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        for ( WordList w : this.wordLists ) {
+            if ( w.isWord( text, start, end ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // each list is probed for all the tokens not yet found before the 
+    // next list is probed
+    @Override
+    public int markKnown( List<String> tokens, BitSet known ) {
+        int size = tokens.size();
+        BitSet unknown = new BitSet( size );
+        unknown.set( 0, size );
+        int count = 0;
+        for ( WordList w : this.wordLists ) {
+            for ( int i = unknown.nextSetBit( 0 ); i >= 0; i = unknown.nextSetBit( i + 1 ) ) {
+                if ( w.isWord( tokens.get( i ) ) ) {
+                    unknown.clear( i );
+                    known.set( i );
+                    count++;
+                }
+            }
+            if ( count == size ) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void forEachWord( Consumer<? super String> action ) {
+        for ( WordList w : this.wordLists ) {
+            w.forEach( action );
+        }
+    }
+
     @Override
     public List<String> tags( String token ) {
         List<String> tags = new ArrayList<>();
@@ -236,7 +401,7 @@ class MainDictionary implements Dictionary {
         StringBuilder output = new StringBuilder( "name=" );
         output.append( this.name );
         output.append( ", entries=" );
-        output.append( this.dictionary.size() );
+        output.append( dictionarySize() );
         output.append( ";" );
 
         return output.toString();
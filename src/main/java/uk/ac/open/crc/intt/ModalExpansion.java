@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.open.crc.intt.text.CaseFolding;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * Provides a mechanism for expanding modal verb abbreviations. The API is
@@ -47,13 +49,14 @@ class ModalExpansion {
 
     // ----------------
     private final HashMap<String, List<String>> store;
+    private final StaticWordSet contractions;
 
     private ModalExpansion () {
         this.store = new HashMap<>();
 
         try {
             InputStream inStream
-                    = this.getClass().getResourceAsStream( "text/contractions.txt" );
+                    = this.getClass().getResourceAsStream( "/wordlists/contractions.txt" );
             try ( BufferedReader in
                     = new BufferedReader( new InputStreamReader( inStream ) ) ) {
                 String line;
@@ -67,7 +70,8 @@ class ModalExpansion {
                         ArrayList<String> modalPhrase = new ArrayList<>();
                         modalPhrase.add( modalTokens[0] );
                         modalPhrase.add( modalTokens[1] );
-                        store.put( tokens[0], modalPhrase );
+                        String contraction = CaseFolding.fold( tokens[0] );
+                        store.put( contraction, modalPhrase );
                     }
                 }
             }
@@ -77,10 +81,15 @@ class ModalExpansion {
                     "problem encountered instantiating Modal Expansion component: {}",
                     ioEx.getMessage() );
         }
+        this.contractions = new StaticWordSet( this.store.keySet() );
     }
 
     boolean isExpandable ( String candidate ) {
-        return this.store.containsKey( candidate.toLowerCase() );
+        return this.contractions.contains( candidate );
+    }
+
+    boolean isExpandable ( CharSequence text, int start, int end ) {
+        return this.contractions.contains( text, start, end );
     }
 
     boolean containsExpandable ( List<String> candidates ) {
@@ -91,7 +100,7 @@ class ModalExpansion {
 
     // simplest, but repetitive
     List<String> getExpansionFor ( String candidate ) {
-        return this.store.get( candidate.toLowerCase() );
+        return this.store.get( CaseFolding.fold( candidate ) );
     }
 
 }
@@ -51,4 +51,9 @@ class NullOpcodeDictionary extends OpcodeDictionary {
     public synchronized boolean isWord( String word ) {
         return false;
     }
+
+    @Override
+    public synchronized boolean isWord( CharSequence text, int start, int end ) {
+        return false;
+    }
 }
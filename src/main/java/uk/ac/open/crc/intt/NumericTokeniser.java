@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.open.crc.intt.text.CaseFolding;
 
 /**
  * Provides a semi-greedy mechanism for splitting identifier names
@@ -28,19 +29,19 @@ import org.slf4j.LoggerFactory;
  */
 class NumericTokeniser {
 
-    private final AggregatedDictionary aggregatedDictionary;
+    private final DictionaryBundle dictionaries;
     private final DigitAbbreviationDictionary numericAbbreviationDictionary;
 
     private static final Logger LOGGER = LoggerFactory.getLogger( NumericTokeniser.class );
 
     /**
-     * Creates a tokeniser with an associated set of dictionaries.
-     * @param dictionarySet a set of dictionaries
+     * Creates a tokeniser with an associated version of the dictionaries.
+     * @param dictionaries a version of the dictionaries
      */
-    NumericTokeniser ( DictionarySet dictionarySet ) {
-        this.aggregatedDictionary = dictionarySet.getAggregatedDictionary();
+    NumericTokeniser ( DictionaryBundle dictionaries ) {
+        this.dictionaries = dictionaries;
         this.numericAbbreviationDictionary = 
-                dictionarySet.getDigitAbbreviationDictionary();
+                dictionaries.getDigitAbbreviationDictionary();
     }
 
     /**
@@ -73,12 +74,12 @@ class NumericTokeniser {
 //                System.out.println(knownSubstrings[0] + "--");
                 // relatively simple algorithm
                 // first check that we don't have the abbreviation as an isolated string
-                if ( knownSubstrings.get( 0 ).equals( nameFragment.toLowerCase() ) ) {
+                if ( knownSubstrings.get( 0 ).equals( CaseFolding.fold( nameFragment ) ) ) {
                     tokens.add( nameFragment );
                 }
                 else {
                     // So we have something to split
-                    int index = nameFragment.toLowerCase().indexOf( knownSubstrings.get( 0 ).toLowerCase() );
+                    int index = CaseFolding.fold( nameFragment ).indexOf( CaseFolding.fold( knownSubstrings.get( 0 ) ) );
 //                    System.out.println("-- " + index + " --");
                     // so the abbreviation is in there somewhere
                     // (1) fetch leading fragment 
@@ -112,7 +113,7 @@ class NumericTokeniser {
                 int startIndex = 0;
                 int endIndex = 0;
                 for ( int i = 0; i < knownSubstrings.size(); i++ ) {
-                    endIndex = nameFragment.toLowerCase().indexOf( knownSubstrings.get( i ) );
+                    endIndex = CaseFolding.fold( nameFragment ).indexOf( knownSubstrings.get( i ) );
                     // DEBUG - begin
                     // System.out.println(startIndex + "-->" + endIndex);
                     // DEBUG - end
@@ -219,9 +220,9 @@ class NumericTokeniser {
                     // now establish if this is a better split, than the embedded
                     // digits gives
                     int conventionalScore = 
-                            this.aggregatedDictionary.percentageKnown( tokens );
+                            this.dictionaries.percentageKnown( tokens );
                     int textSpeakScore = 
-                            this.aggregatedDictionary.percentageKnown( textSpeakWords );
+                            this.dictionaries.percentageKnown( textSpeakWords );
 
                     if ( textSpeakScore >= conventionalScore ) {
                         // favour the text-speak solution
@@ -252,11 +253,8 @@ class NumericTokeniser {
             boolean isLastToken ) {
         // look at the camel case split
         Boolean camelCase = 
-                this.aggregatedDictionary.isWord( fragment.substring( 0, boundary ) ) 
-                || this.aggregatedDictionary.isWord( fragment.substring( boundary ) );
-        Boolean alternateCase = 
-                this.aggregatedDictionary.isWord( fragment.substring( 0, boundary + 1 ) ) 
-                || this.aggregatedDictionary.isWord( fragment.substring( boundary + 1 ) );
+                this.dictionaries.isWord( fragment, 0, boundary ) 
+                || this.dictionaries.isWord( fragment, boundary, fragment.length() );
         List<String> fragments = new ArrayList<>();
         if ( camelCase == true ) {
             // split camel case and check which fragment has the digit
@@ -414,12 +412,12 @@ class NumericTokeniser {
                 // is there an RH candidate?
                 if ( i + 2 < fragments.size() ) {
                     // check the RH candidate
-                    if ( this.aggregatedDictionary.isWord( fragments.get( i + 2 ) ) ) {
+                    if ( this.dictionaries.isWord( fragments.get( i + 2 ) ) ) {
                         tokens.add( fragments.get( i ) + fragments.get( i + 1 ) );
                         i += 2;
                     }
                     else {
-                        if ( this.aggregatedDictionary.isWord( fragments.get( i ) ) ) {
+                        if ( this.dictionaries.isWord( fragments.get( i ) ) ) {
                             // concatenate the digits with the RH frag
                             tokens.add( fragments.get( i ) );
                             tokens.add( fragments.get( i + 1 ) + fragments.get( i + 2 ) );
@@ -18,8 +18,8 @@
 package uk.ac.open.crc.intt;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * A dictionary of Java bytecode opcodes.
@@ -27,7 +27,7 @@ import java.util.List;
  */
 class OpcodeDictionary implements Dictionary {
 
-    private HashSet<String> opcodeSet;
+    private final StaticWordSet opcodeSet;
 
     String name = "Opcode Dictionary";
 
@@ -38,10 +38,7 @@ class OpcodeDictionary implements Dictionary {
      * @param opcodes a list of opcodes
      */
     public OpcodeDictionary ( List<String> opcodes ) {
-        this.opcodeSet = new HashSet<>();
-        opcodes.stream().forEach( (opcode) -> {
-            this.opcodeSet.add( opcode.toLowerCase() );
-        } );
+        this.opcodeSet = new StaticWordSet( opcodes );
     }
 
     /**
@@ -65,8 +62,13 @@ class OpcodeDictionary implements Dictionary {
      *
      */
     @Override
-    public synchronized boolean isWord ( String name ) {
-        return opcodeSet.contains( name.toLowerCase() );
+    public boolean isWord ( String name ) {
+        return opcodeSet.contains( name );
+    }
+
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        return opcodeSet.contains( text, start, end );
     }
 
      @Override
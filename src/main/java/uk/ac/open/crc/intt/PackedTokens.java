@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The result of tokenising a batch of identifier names held in a single
+ * character array. The tokens of all the names are held in parallel 
+ * arrays of start offsets, end offsets and flags, where the offsets are 
+ * indices in the character array, or relative to the position of a
+ * {@code CharBuffer}. A further array indexes the tokens of
+ * each identifier name: the tokens of name <i>n</i> are those from
+ * {@code firstToken(n)} (inclusive) to {@code firstToken(n + 1)} 
+ * (exclusive).
+ *
+ * <p>
+ * Instances may be reused for successive batches, in which case the 
+ * arrays are only reallocated when a batch is larger than any seen 
+ * before. The flags are those defined by {@link TokenSpans}.
+ * </p>
+ *
+ */
+public final class PackedTokens {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private char[] text;
+    private int base;
+
+    private int[] starts;
+    private int[] ends;
+    private int[] flags;
+    private int tokenCount;
+
+    private int[] tokenIndex;
+    private int identifierCount;
+
+    /**
+     * Creates an empty batch result.
+     */
+    public PackedTokens() {
+        this.text = new char[0];
+        this.base = 0;
+        this.starts = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.flags = new int[INITIAL_CAPACITY];
+        this.tokenIndex = new int[INITIAL_CAPACITY];
+        this.tokenCount = 0;
+        this.identifierCount = 0;
+    }
+
+    /**
+     * Empties the result in preparation for a new batch.
+     * @param text the array containing the names of the batch
+     * @param base the index in the array from which offsets are measured
+     * @param expectedIdentifiers the number of names in the batch
+     */
+    void reset( char[] text, int base, int expectedIdentifiers ) {
+        this.text = text;
+        this.base = base;
+        this.tokenCount = 0;
+        this.identifierCount = 0;
+        if ( this.tokenIndex.length < expectedIdentifiers + 1 ) {
+            this.tokenIndex = new int[expectedIdentifiers + 1];
+        }
+        this.tokenIndex[0] = 0;
+    }
+
+    /**
+     * Appends a token to the current identifier name.
+     * @param start the index in the array of the first character
+     * @param end the index in the array following the last character
+     * @param flags the flags for the token
+     */
+    void addToken( int start, int end, int flags ) {
+        if ( this.tokenCount == this.starts.length ) {
+            int capacity = this.tokenCount * 2;
+            this.starts = Arrays.copyOf( this.starts, capacity );
+            this.ends = Arrays.copyOf( this.ends, capacity );
+            this.flags = Arrays.copyOf( this.flags, capacity );
+        }
+        this.starts[this.tokenCount] = start;
+        this.ends[this.tokenCount] = end;
+        this.flags[this.tokenCount] = flags;
+        this.tokenCount++;
+    }
+
+    /**
+     * Marks the end of the tokens of the current identifier name.
+     */
+    void endIdentifier() {
+        if ( this.identifierCount + 1 == this.tokenIndex.length ) {
+            this.tokenIndex = Arrays.copyOf( this.tokenIndex, this.tokenIndex.length * 2 );
+        }
+        this.identifierCount++;
+        this.tokenIndex[this.identifierCount] = this.tokenCount;
+    }
+
+    /**
+     * Recovers the number of identifier names in the batch.
+     * @return the number of names
+     */
+    public int identifierCount() {
+        return this.identifierCount;
+    }
+
+    /**
+     * Recovers the total number of tokens in the batch.
+     * @return the number of tokens
+     */
+    public int tokenCount() {
+        return this.tokenCount;
+    }
+
+    /**
+     * Recovers the index of the first token of an identifier name. Where 
+     * {@code identifier} is equal to {@link #identifierCount()} the value 
+     * returned is the total number of tokens.
+     * @param identifier the index of a name in the batch
+     * @return the index of the first token of the name
+     */
+    public int firstToken( int identifier ) {
+        if ( identifier < 0 || identifier > this.identifierCount ) {
+            throw new IndexOutOfBoundsException( "identifier: " + identifier );
+        }
+        return this.tokenIndex[identifier];
+    }
+
+    /**
+     * Recovers the number of tokens an identifier name was split into.
+     * @param identifier the index of a name in the batch
+     * @return the number of tokens
+     */
+    public int tokenCount( int identifier ) {
+        return firstToken( identifier + 1 ) - firstToken( identifier );
+    }
+
+    /**
+     * Recovers the index in the character array of the first character of 
+     * a token.
+     * @param token the index of a token
+     * @return the offset of the first character of the token
+     */
+    public int start( int token ) {
+        checkToken( token );
+        return this.starts[token];
+    }
+
+    /**
+     * Recovers the index in the character array following the last 
+     * character of a token.
+     * @param token the index of a token
+     * @return the offset following the last character of the token
+     */
+    public int end( int token ) {
+        checkToken( token );
+        return this.ends[token];
+    }
+
+    /**
+     * Recovers the flags set for a token.
+     * @param token the index of a token
+     * @return the flags for the token
+     */
+    public int flags( int token ) {
+        checkToken( token );
+        return this.flags[token];
+    }
+
+    /**
+     * Indicates whether a token was found in the dictionaries.
+     * @param token the index of a token
+     * @return {@code true} if the token is a known word or abbreviation
+     */
+    public boolean isKnown( int token ) {
+        return ( flags( token ) & TokenSpans.KNOWN ) != 0;
+    }
+
+    /**
+     * Indicates whether a token contains a digit.
+     * @param token the index of a token
+     * @return {@code true} if the token contains a digit
+     */
+    public boolean containsDigit( int token ) {
+        return ( flags( token ) & TokenSpans.DIGIT ) != 0;
+    }
+
+    /**
+     * Creates the string for a token.
+     * @param token the index of a token
+     * @return the token
+     */
+    public String token( int token ) {
+        return new String( this.text, this.base + start( token ), end( token ) - start( token ) );
+    }
+
+    /**
+     * Creates a list of the tokens of an identifier name.
+     * @param identifier the index of a name in the batch
+     * @return a list of tokens
+     */
+    public List<String> tokens( int identifier ) {
+        int first = firstToken( identifier );
+        int last = firstToken( identifier + 1 );
+        List<String> tokens = new ArrayList<>( last - first );
+        for ( int i = first; i < last; i++ ) {
+            tokens.add( token( i ) );
+        }
+        return tokens;
+    }
+
+    private void checkToken( int token ) {
+        if ( token < 0 || token >= this.tokenCount ) {
+            throw new IndexOutOfBoundsException( "token: " + token );
+        }
+    }
+}
@@ -17,8 +17,9 @@
 package uk.ac.open.crc.intt;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * Experimental class for combining tokens that the name creator has separated
@@ -33,13 +34,8 @@ import java.util.List;
  */
 class PrefixConcatenator {
 
-    private static final HashSet<String> PREFIX_SET;
-    
-    static {
-        PREFIX_SET = new HashSet<>();
-        PREFIX_SET.add( "pre" );
-        PREFIX_SET.add( "sub" );
-    }
+    private static final StaticWordSet PREFIX_SET = 
+            new StaticWordSet( Arrays.asList( "pre", "sub" ) );
     
     /**
      * Default constructor given to constrain visibility.
@@ -86,6 +82,6 @@ class PrefixConcatenator {
     }
     
     private boolean isPrefix( String candidate ) {
-        return PREFIX_SET.contains( candidate.toLowerCase() );
+        return PREFIX_SET.contains( candidate );
     }
 }
@@ -18,8 +18,8 @@
 package uk.ac.open.crc.intt;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * Provides a base class for prefix dictionaries.
@@ -27,7 +27,7 @@ import java.util.List;
  */
 class PrefixDictionary implements AffixDictionary {
 
-    private HashSet<String> prefixSet;
+    private StaticWordSet prefixSet;
 
     private List<String> prefixes;
 
@@ -47,7 +47,7 @@ class PrefixDictionary implements AffixDictionary {
             List<String> prefixes, 
             AggregatedDictionary aggregatedDictionary ) {
         this.prefixes = prefixes;
-        prefixSet = new HashSet<>( this.prefixes );
+        prefixSet = new StaticWordSet( this.prefixes );
 
         for ( String prefix : this.prefixes ) {
             if ( prefix.length() > this.longest ) {
@@ -85,8 +85,8 @@ class PrefixDictionary implements AffixDictionary {
 
         for ( String prefix : this.prefixes ) {
             if ( token.startsWith( prefix ) ) {
-                String test = token.substring( prefix.length() );
-                isWord = this.dictionary.isWord( test );
+                isWord = this.dictionary.isWord( 
+                        token, prefix.length(), token.length() );
                 if ( isWord ) {
                     break;
                 }
@@ -103,7 +103,12 @@ class PrefixDictionary implements AffixDictionary {
      */
     @Override
     public boolean isWord ( String token ) {
-        return this.prefixSet.contains( token.toLowerCase() );
+        return this.prefixSet.contains( token );
+    }
+
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        return this.prefixSet.contains( text, start, end );
     }
 
     @Override
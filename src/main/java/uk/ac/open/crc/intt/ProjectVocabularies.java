@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Holds a project vocabulary for each of a number of projects, so that 
+ * tokenisers for different projects can share a set of dictionaries 
+ * without sharing what they learn. A vocabulary that has not been used 
+ * for longer than the idle timeout is released when another vocabulary 
+ * is requested. A released vocabulary is only weakly held, so it is 
+ * reclaimed once no tokeniser uses it, and the project then starts again 
+ * with an empty vocabulary. While any tokeniser still uses it, a request 
+ * for the project's vocabulary returns the same instance, so a project 
+ * never has two vocabularies learning at once.
+ *
+ */
+final class ProjectVocabularies {
+    private final Map<String, ProjectVocabulary> vocabularies = new HashMap<>();
+
+    // idle vocabularies that may still be in use by tokenisers
+    private final Map<String, WeakReference<ProjectVocabulary>> released = new HashMap<>();
+
+    private long idleTimeout = Long.MAX_VALUE;
+
+    /**
+     * Retrieves the vocabulary of a project, creating it if the project 
+     * has none, and marks it as used.
+     * @param projectId identifies the project
+     * @param creator creates an empty vocabulary for a new project
+     * @return the project's vocabulary
+     */
+    synchronized ProjectVocabulary get( 
+            String projectId, Supplier<ProjectVocabulary> creator ) {
+        long now = System.nanoTime();
+        evictIdle( now );
+        ProjectVocabulary vocabulary = this.vocabularies.get( projectId );
+        if ( vocabulary == null ) {
+            WeakReference<ProjectVocabulary> reference = this.released.remove( projectId );
+            vocabulary = reference == null ? null : reference.get();
+            if ( vocabulary == null ) {
+                vocabulary = creator.get();
+            }
+            this.vocabularies.put( projectId, vocabulary );
+        }
+        vocabulary.touch( now );
+        return vocabulary;
+    }
+
+    /**
+     * Discards the vocabulary of a project, whether or not it is still in
+     * use, so that the next request for the project creates a new one.
+     * @param projectId identifies the project
+     * @return {@code true} if the project had a vocabulary
+     */
+    synchronized boolean remove( String projectId ) {
+        WeakReference<ProjectVocabulary> reference = this.released.remove( projectId );
+        return this.vocabularies.remove( projectId ) != null
+                || ( reference != null && reference.get() != null );
+    }
+
+    /**
+     * Sets the time after which an unused vocabulary is discarded.
+     * @param idleTimeout the timeout in nanoseconds
+     */
+    synchronized void setIdleTimeout( long idleTimeout ) {
+        this.idleTimeout = idleTimeout;
+        evictIdle( System.nanoTime() );
+    }
+
+    /**
+     * Reports the number of projects with a vocabulary that is not idle.
+     * @return the number of vocabularies held
+     */
+    synchronized int size() {
+        return this.vocabularies.size();
+    }
+
+    /**
+     * Passes each vocabulary held to the action, for example to change 
+     * its configuration. Idle vocabularies still in use are included.
+     * @param action an action to perform on each vocabulary
+     */
+    synchronized void forEach( Consumer<ProjectVocabulary> action ) {
+        this.vocabularies.values().forEach( action );
+        this.released.values().forEach( reference -> {
+            ProjectVocabulary vocabulary = reference.get();
+            if ( vocabulary != null ) {
+                action.accept( vocabulary );
+            }
+        } );
+    }
+
+    // moves idle vocabularies to the weakly held map and forgets those
+    // that have been reclaimed
+    private void evictIdle( long now ) {
+        Iterator<Map.Entry<String, ProjectVocabulary>> iterator = 
+                this.vocabularies.entrySet().iterator();
+        while ( iterator.hasNext() ) {
+            Map.Entry<String, ProjectVocabulary> entry = iterator.next();
+            if ( now - entry.getValue().lastUsed() > this.idleTimeout ) {
+                this.released.put( entry.getKey(), new WeakReference<>( entry.getValue() ) );
+                iterator.remove();
+            }
+        }
+        this.released.values().removeIf( reference -> reference.get() == null );
+    }
+}
@@ -16,9 +16,21 @@
 
 package uk.ac.open.crc.intt;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import uk.ac.open.crc.intt.text.BloomFilter;
+import uk.ac.open.crc.intt.text.CountedWordSet;
 
 /**
  * A store of project specific vocabulary. This is for tokens that 
@@ -28,15 +40,45 @@ import java.util.List;
  */
 class ProjectVocabulary implements Dictionary {
 
-    private HashSet<String> vocabularySet;
+    private CountedWordSet vocabularySet;
 
-    private final int MINIMUM_CAPACITY = 10000;
+    // the vocabulary and its filter start small and grow as words are added
+    private static final int INITIAL_SIZE = 64;
+
+    // identifies a snapshot file, "INTV", followed by the format version
+    private static final int SNAPSHOT_MAGIC = 0x494e5456;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private int maximumWordLength = 0;
+    private int maximumEntries = Integer.MAX_VALUE;
+
+    // answers most lookups of unknown words without probing the set
+    private BloomFilter filter = null;
+    private double falsePositiveRate = 0;
+    private long filterBytes = 0;
+    private long evictionsAtFilterBuild = 0;
+
+    // when a word was last added or a tokeniser was given the vocabulary,
+    // used to discard idle project vocabularies
+    private long lastUsed = System.nanoTime();
+
+    // true for a snapshot, which is read by many threads without locking
+    // and so refuses every change
+    private final boolean frozen;
 
     /**
      * Creates an empty dictionary for project vocabulary.
      */
     ProjectVocabulary () {
-        this.vocabularySet = new HashSet<>( MINIMUM_CAPACITY );
+        this.vocabularySet = new CountedWordSet( INITIAL_SIZE );
+        this.frozen = false;
+    }
+
+    // creates a snapshot
+    private ProjectVocabulary ( CountedWordSet words, int maximumWordLength ) {
+        this.vocabularySet = words;
+        this.maximumWordLength = maximumWordLength;
+        this.frozen = true;
     }
 
     /**
@@ -44,9 +86,12 @@ class ProjectVocabulary implements Dictionary {
      * @param vocabulary a {@code List} of 'words' to add to a project vocabulary
      */
     ProjectVocabulary ( List<String> vocabulary ) {
-        this();
+        this.vocabularySet = 
+                new CountedWordSet( Math.max( INITIAL_SIZE, vocabulary.size() ) );
+        this.frozen = false;
         vocabulary.stream().forEach( ( word ) -> { 
-            this.vocabularySet.add( word.toLowerCase() ); 
+            this.vocabularySet.add( word ); 
+            this.maximumWordLength = Math.max( this.maximumWordLength, word.length() );
         } );
     }
 
@@ -55,8 +100,321 @@ class ProjectVocabulary implements Dictionary {
      * @param word a term to add tot he dictionary
      */
     final synchronized void add ( String word ) {
-        // HashSet.add() is constant time
-        this.vocabularySet.add( word.toLowerCase() );
+        checkWritable();
+        this.lastUsed = System.nanoTime();
+        // CountedWordSet.add() is constant time
+        if ( this.vocabularySet.add( word ) ) {
+            this.maximumWordLength = Math.max( this.maximumWordLength, word.length() );
+            addToFilter( word, 0, word.length() );
+        }
+    }
+
+    /**
+     * Add a range of characters to the vocabulary. A string is only created
+     * if the word is not already in the vocabulary.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     */
+    final synchronized void add ( CharSequence text, int start, int end ) {
+        checkWritable();
+        this.lastUsed = System.nanoTime();
+        insert( text, start, end );
+    }
+
+    /**
+     * Adds consecutive ranges of a character sequence to the vocabulary 
+     * while holding the lock once. The first word starts at index 0 and 
+     * each following word starts where the previous one ends.
+     * @param text a character sequence
+     * @param ends the index following the last character of each word
+     * @param count the number of words
+     */
+    synchronized void addAll ( CharSequence text, int[] ends, int count ) {
+        checkWritable();
+        this.lastUsed = System.nanoTime();
+        int start = 0;
+        for ( int i = 0; i < count; i++ ) {
+            insert( text, start, ends[i] );
+            start = ends[i];
+        }
+    }
+
+    private void insert ( CharSequence text, int start, int end ) {
+        if ( this.vocabularySet.add( text, start, end ) ) {
+            this.maximumWordLength = Math.max( this.maximumWordLength, end - start );
+            addToFilter( text, start, end );
+        }
+    }
+
+    /**
+     * Adds words with their counts to the vocabulary in the order of the map,
+     * so that the result of merging the same words is always the same, 
+     * including which words are evicted from a bounded vocabulary.
+     * @param words words in lower case and the number of times each was seen
+     */
+    synchronized void merge ( SortedMap<String, Integer> words ) {
+        checkWritable();
+        words.forEach( ( word, count ) -> {
+            if ( this.vocabularySet.add( word, Math.max( 1, count ) ) ) {
+                this.maximumWordLength = Math.max( this.maximumWordLength, word.length() );
+                addToFilter( word, 0, word.length() );
+            }
+        } );
+    }
+
+    /**
+     * Creates a frozen copy of the vocabulary, with the same lookup filter
+     * setting. The lookups of the snapshot take no lock, so any number of 
+     * threads can share it without contending for this vocabulary. Any 
+     * attempt to change the snapshot throws an 
+     * {@code IllegalStateException}.
+     * @return a read only copy of the vocabulary
+     */
+    synchronized ProjectVocabulary snapshot () {
+        CountedWordSet words = new CountedWordSet( this.vocabularySet.size() );
+        this.vocabularySet.forEachEntry( 
+                ( word, count ) -> words.add( word, Math.max( 1, count ) ) );
+        ProjectVocabulary snapshot = new ProjectVocabulary( words, this.maximumWordLength );
+        if ( this.filter != null ) {
+            snapshot.falsePositiveRate = this.falsePositiveRate;
+            snapshot.filterBytes = this.filterBytes;
+            // a snapshot does not grow, so the filter is sized for its words
+            snapshot.buildFilter( snapshot.filterSize( words.size() ) );
+        }
+        return snapshot;
+    }
+
+    /**
+     * Writes the words in the vocabulary and their counts to a file. The
+     * words are written in alphabetical order so that a snapshot of the
+     * same vocabulary is always the same and restores in the same order.
+     *
+     * <p>
+     * The file is binary: a four byte magic number and a version, the 
+     * number of entries, and then each word as modified UTF-8 with its 
+     * count as a variable length integer.
+     * </p>
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    synchronized void save ( Path path ) throws IOException {
+        Map<String, Integer> entries = new TreeMap<>();
+        this.vocabularySet.forEachEntry( entries::put );
+
+        try ( DataOutputStream out = new DataOutputStream( 
+                new BufferedOutputStream( Files.newOutputStream( path ) ) ) ) {
+            out.writeInt( SNAPSHOT_MAGIC );
+            out.writeByte( SNAPSHOT_VERSION );
+            writeVariableLength( out, entries.size() );
+            for ( Map.Entry<String, Integer> entry : entries.entrySet() ) {
+                out.writeUTF( entry.getKey() );
+                // aged counts may be zero
+                writeVariableLength( out, entry.getValue() );
+            }
+        }
+    }
+
+    /**
+     * Creates a vocabulary from a file written by {@link #save(Path)}.
+     *
+     * @param path the file to read
+     * @return a vocabulary containing the words and counts in the file
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    static ProjectVocabulary load ( Path path ) throws IOException {
+        ProjectVocabulary vocabulary = new ProjectVocabulary();
+        vocabulary.restore( path );
+        return vocabulary;
+    }
+
+    /**
+     * Adds the words and counts in a file written by {@link #save(Path)} 
+     * to the vocabulary.
+     *
+     * @param path the file to read
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    synchronized void restore ( Path path ) throws IOException {
+        checkWritable();
+        try ( DataInputStream in = new DataInputStream( 
+                new BufferedInputStream( Files.newInputStream( path ) ) ) ) {
+            if ( in.readInt() != SNAPSHOT_MAGIC ) {
+                throw new IOException( "Not a project vocabulary snapshot: " + path );
+            }
+            int version = in.readUnsignedByte();
+            if ( version != SNAPSHOT_VERSION ) {
+                throw new IOException( 
+                        "Unsupported project vocabulary snapshot version " + version );
+            }
+            int size = readVariableLength( in );
+            for ( int i = 0; i < size; i++ ) {
+                String word = in.readUTF();
+                int count = readVariableLength( in );
+                if ( this.vocabularySet.add( word, Math.max( 1, count ) ) ) {
+                    this.maximumWordLength = Math.max( this.maximumWordLength, word.length() );
+                }
+            }
+        }
+        if ( this.filter != null ) {
+            buildFilter( filterSize( Math.max( this.filter.expectedEntries(), 
+                    this.vocabularySet.size() * 2 ) ) );
+        }
+    }
+
+    private static void writeVariableLength ( DataOutputStream out, int value ) 
+            throws IOException {
+        while ( ( value & ~0x7f ) != 0 ) {
+            out.writeByte( ( value & 0x7f ) | 0x80 );
+            value >>>= 7;
+        }
+        out.writeByte( value );
+    }
+
+    private static int readVariableLength ( DataInputStream in ) throws IOException {
+        int value = 0;
+        for ( int shift = 0; shift < 35; shift += 7 ) {
+            int b = in.readUnsignedByte();
+            value |= ( b & 0x7f ) << shift;
+            if ( ( b & 0x80 ) == 0 ) {
+                return value;
+            }
+        }
+        throw new IOException( "Malformed project vocabulary snapshot" );
+    }
+
+    /**
+     * Bounds the size of the vocabulary. When a bound is exceeded the words
+     * that have been added least often and least recently are evicted. 
+     * The counts of additions can be aged by halving them all at an 
+     * interval so that the vocabulary follows the recent names.
+     *
+     * @param maximumEntries the most words the vocabulary may hold
+     * @param maximumBytes the most memory, estimated, the words may use
+     * @param decayInterval the number of additions after which the counts
+     * are halved, or 0 for no aging
+     */
+    synchronized void setBounds ( int maximumEntries, long maximumBytes, int decayInterval ) {
+        checkWritable();
+        this.vocabularySet.setBounds( maximumEntries, maximumBytes, decayInterval );
+        this.maximumEntries = maximumEntries;
+        if ( this.filter != null && this.filter.expectedEntries() > maximumEntries ) {
+            buildFilter( filterSize( this.vocabularySet.size() * 2 ) );
+        }
+    }
+
+    /**
+     * Removes the bounds from the vocabulary.
+     */
+    synchronized void setUnbounded () {
+        checkWritable();
+        this.vocabularySet.setUnbounded();
+        this.maximumEntries = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Records that the vocabulary is in use.
+     * @param now the current value of {@link System#nanoTime()}
+     */
+    synchronized void touch ( long now ) {
+        this.lastUsed = now;
+    }
+
+    /**
+     * Reports when the vocabulary was last used: when a word was last added
+     * or it was last given to a tokeniser.
+     * @return the value of {@link System#nanoTime()} when last used
+     */
+    synchronized long lastUsed () {
+        return this.lastUsed;
+    }
+
+    /**
+     * Reports the number of words in the vocabulary.
+     * @return the number of words
+     */
+    synchronized int size () {
+        return this.vocabularySet.size();
+    }
+
+    /**
+     * Reports the length of the longest word in the vocabulary. Evictions
+     * do not reduce the length, so it is an upper bound in a bounded
+     * vocabulary.
+     * @return the length of the longest word, or 0 if the vocabulary is empty
+     */
+    int maximumWordLength () {
+        if ( this.frozen ) {
+            return this.maximumWordLength;
+        }
+        synchronized ( this ) {
+            return this.maximumWordLength;
+        }
+    }
+
+    /**
+     * Places a Bloom filter over the vocabulary in front of the lookups, 
+     * so that most unknown words are rejected with a single memory access.
+     * The filter is sized from the words held and is rebuilt at twice the 
+     * size when the vocabulary outgrows it, within the memory budget and 
+     * no larger than the bound on the number of words.
+     *
+     * @param falsePositiveRate the desired false positive rate of the filter
+     * @param maximumBytes the most memory the filter may use
+     */
+    synchronized void setLookupFilter ( double falsePositiveRate, long maximumBytes ) {
+        checkWritable();
+        this.falsePositiveRate = falsePositiveRate;
+        this.filterBytes = maximumBytes;
+        buildFilter( filterSize( this.vocabularySet.size() * 2 ) );
+    }
+
+    /**
+     * Removes the Bloom filter from the lookups.
+     */
+    synchronized void setLookupFilterOff () {
+        checkWritable();
+        this.falsePositiveRate = 0;
+        this.filter = null;
+    }
+
+    private void checkWritable () {
+        if ( this.frozen ) {
+            throw new IllegalStateException( "Vocabulary snapshot is read only" );
+        }
+    }
+
+    private void addToFilter ( CharSequence text, int start, int end ) {
+        if ( this.filter == null ) {
+            return;
+        }
+        if ( this.vocabularySet.size() > this.filter.expectedEntries() ) {
+            buildFilter( filterSize( this.filter.expectedEntries() * 2 ) );
+        }
+        else if ( this.vocabularySet.evictions() - this.evictionsAtFilterBuild 
+                > this.filter.expectedEntries() ) {
+            // evicted words cannot be removed from the filter, so it is 
+            // rebuilt before they raise its false positive rate too far
+            buildFilter( this.filter.expectedEntries() );
+        }
+        else {
+            this.filter.add( text, start, end );
+        }
+    }
+
+    // the number of entries to build a filter for, which is no more than a
+    // bounded vocabulary can hold
+    private int filterSize ( int entries ) {
+        return Math.max( INITIAL_SIZE, Math.min( this.maximumEntries, entries ) );
+    }
+
+    private void buildFilter ( int expectedEntries ) {
+        BloomFilter bloomFilter = 
+                new BloomFilter( expectedEntries, this.falsePositiveRate, this.filterBytes );
+        this.vocabularySet.forEach( bloomFilter::add );
+        this.filter = bloomFilter;
+        this.evictionsAtFilterBuild = this.vocabularySet.evictions();
     }
 
     /**
@@ -65,8 +423,62 @@ class ProjectVocabulary implements Dictionary {
      * @return {@code true} iff the test string is found in the vocabulary
      */
     @Override
-    public synchronized boolean isWord ( String token ) {
-        return this.vocabularySet.contains( token.toLowerCase() );
+    public boolean isWord ( String token ) {
+        return isWord( token, 0, token.length() );
+    }
+
+    /**
+     * Checks if a range of characters is found in the project vocabulary.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} iff the range is found in the vocabulary
+     */
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        if ( this.frozen ) {
+            return contains( text, start, end );
+        }
+        synchronized ( this ) {
+            return contains( text, start, end );
+        }
+    }
+
+    private boolean contains ( CharSequence text, int start, int end ) {
+        if ( this.filter != null && ! this.filter.mightContain( text, start, end ) ) {
+            return false;
+        }
+        return this.vocabularySet.contains( text, start, end );
+    }
+
+    /**
+     * Marks the tokens found in the project vocabulary, taking the lock
+     * once for the whole list.
+     * @param tokens a list of tokens to test
+     * @param known the set in which the index of each token found is set
+     * @return the number of tokens found
+     */
+    @Override
+    public int markKnown ( List<String> tokens, BitSet known ) {
+        if ( this.frozen ) {
+            return mark( tokens, known );
+        }
+        synchronized ( this ) {
+            return mark( tokens, known );
+        }
+    }
+
+    private int mark ( List<String> tokens, BitSet known ) {
+        int count = 0;
+        for ( int i = 0; i < tokens.size(); i++ ) {
+            String token = tokens.get( i );
+            if ( ( this.filter == null || this.filter.mightContain( token ) )
+                    && this.vocabularySet.contains( token ) ) {
+                known.set( i );
+                count++;
+            }
+        }
+        return count;
     }
 
     @Override
@@ -86,14 +498,8 @@ class ProjectVocabulary implements Dictionary {
      * @return the percentage of member of the supplied list that are found in 
      * the project vocabulary
      */
-    synchronized int percentageKnown ( List<String> tokens ) {
-        int knownCount = 0;
-
-        for ( String word : tokens ) {
-            if ( this.isWord( word ) == true ) {
-                knownCount++;
-            }
-        }
+    int percentageKnown ( List<String> tokens ) {
+        int knownCount = markKnown( tokens, new BitSet( tokens.size() ) );
 
         return (int) ( 100 * knownCount / tokens.size() );
     }
@@ -105,14 +511,8 @@ class ProjectVocabulary implements Dictionary {
      * @return the percentage of member of the supplied list that are found in 
      * the project vocabulary
      */
-    synchronized int weightedPercentageKnown ( List<String> tokens ) {
-        int knownCount = 0;
-
-        for ( String token : tokens ) {
-            if ( this.isWord( token ) == true ) {
-                knownCount++;
-            }
-        }
+    int weightedPercentageKnown ( List<String> tokens ) {
+        int knownCount = markKnown( tokens, new BitSet( tokens.size() ) );
 
         return knownCount + (int) ( 100 * knownCount / tokens.size() );
     }
@@ -125,14 +525,8 @@ class ProjectVocabulary implements Dictionary {
      * @return the percentage of member of the supplied list that are found in 
      * the project vocabulary plus the number of tokens found
      */
-    synchronized int percentageKnownA ( List<String> tokens ) {
-        int knownCount = 0;
-
-        for ( String token : tokens ) {
-            if ( token.length() > 2 && this.isWord( token ) == true ) {
-                knownCount++;
-            }
-        }
+    int percentageKnownA ( List<String> tokens ) {
+        int knownCount = knownLongTokens( tokens );
 
         return (int) ( 100 * knownCount / tokens.size() );
     }
@@ -145,16 +539,22 @@ class ProjectVocabulary implements Dictionary {
      * @return the percentage of member of the supplied list that are found in 
      * the project vocabulary plus the number of tokens found 
      */
-    synchronized int weightedPercentageKnownA ( List<String> tokens ) {
-        int knownCount = 0;
+    int weightedPercentageKnownA ( List<String> tokens ) {
+        int knownCount = knownLongTokens( tokens );
+
+        return knownCount + (int) ( 100 * knownCount / tokens.size() );
+    }
 
-        for ( String token : tokens ) {
-            if ( token.length() > 2 && this.isWord( token ) == true ) {
+    // counts the tokens of three or more characters that are known
+    private int knownLongTokens ( List<String> tokens ) {
+        BitSet known = new BitSet( tokens.size() );
+        markKnown( tokens, known );
+        int knownCount = 0;
+        for ( int i = known.nextSetBit( 0 ); i >= 0; i = known.nextSetBit( i + 1 ) ) {
+            if ( tokens.get( i ).length() > 2 ) {
                 knownCount++;
             }
         }
-
-        return knownCount + (int) ( 100 * knownCount / tokens.size() );
+        return knownCount;
     }
-
 }
@@ -18,6 +18,8 @@ package uk.ac.open.crc.intt;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -46,7 +48,7 @@ import org.slf4j.LoggerFactory;
  */
 class SingleCaseTokeniser {
 
-    private final AggregatedDictionary dictionary;
+    private final DictionaryBundle dictionary;
     private final ProjectVocabulary projectVocabulary;
     private final SuffixDictionary suffixDictionary;
     private final PrefixDictionary prefixDictionary;
@@ -60,10 +62,24 @@ class SingleCaseTokeniser {
      * @param dictionarySet a set of dictionaries
      */
     SingleCaseTokeniser ( DictionarySet dictionarySet ) {
-        this.dictionary = dictionarySet.getAggregatedDictionary();
-        this.projectVocabulary = dictionarySet.getProjectVocabulary();
-        this.prefixDictionary = dictionarySet.getPrefixDictionary();
-        this.suffixDictionary = dictionarySet.getSuffixDictionary();
+        this( dictionarySet.getAggregatedDictionary().bundle(), 
+                dictionarySet.getProjectVocabulary() );
+    }
+
+    /**
+     * Creates a tokeniser that uses a given version of the dictionaries, 
+     * including its affix dictionaries, and consults a vocabulary other 
+     * than the project vocabulary of the dictionary set.
+     *
+     * @param dictionaries the version of the dictionaries to use
+     * @param projectVocabulary the vocabulary to consult
+     */
+    SingleCaseTokeniser ( DictionaryBundle dictionaries, 
+            ProjectVocabulary projectVocabulary ) {
+        this.dictionary = dictionaries;
+        this.projectVocabulary = projectVocabulary;
+        this.prefixDictionary = dictionaries.getPrefixDictionary();
+        this.suffixDictionary = dictionaries.getSuffixDictionary();
     }
 
     // refactor -- this method is way too unwieldy
@@ -84,13 +100,17 @@ class SingleCaseTokeniser {
             return neologism;
         }
 
+        // no candidate can be longer than the longest known word, which is
+        // read once for the whole split
+        int longest = longestWord();
+
         // OK - so we try splitting forwards
         ArrayList<ArrayDeque<String>> candidates
-                = splitForwards( "", identifier );
+                = splitForwards( "", identifier, longest );
 
         // Then backwards
         ArrayList<ArrayDeque<String>> bCandidates
-                = splitBackwards( "", identifier );
+                = splitBackwards( "", identifier, longest );
 
         // tidy up each list looking for obvious incidents of oversplitting
         cleanup( candidates );
@@ -135,7 +155,7 @@ class SingleCaseTokeniser {
                 String prefix = identifier.substring( 0, i + 1 );
                 String suffix = identifier.substring( identifier.length() - i - 1, identifier.length() );
                 ArrayList<ArrayDeque<String>> fSlidingCandidates
-                        = splitForwards( prefix, identifier );
+                        = splitForwards( prefix, identifier, longest );
                 // now add the prefix to the head of each deque
                 fSlidingCandidates.stream().map( (candidate) -> {
                     candidate.addFirst( prefix );
@@ -145,7 +165,7 @@ class SingleCaseTokeniser {
                 } );
 
                 ArrayList<ArrayDeque<String>> bSlidingCandidates
-                        = splitBackwards( suffix, identifier );
+                        = splitBackwards( suffix, identifier, longest );
                 // now add the suffix to the tail of each deque
                 for ( ArrayDeque<String> candidate : bSlidingCandidates ) {
                     candidate.addLast( suffix );
@@ -214,25 +234,29 @@ class SingleCaseTokeniser {
      *
      * @param prefix a known word or abbreviation
      * @param name   the string to be split
+     * @param longest the length of the longest known word
      * @return a list of candidate splittings. In the worst case this will be
      * the original name passed in.
      */
-    private ArrayList<ArrayDeque<String>> splitForwards ( String prefix, String name ) {
+    private ArrayList<ArrayDeque<String>> splitForwards ( 
+            String prefix, String name, int longest ) {
         HashSet<String> candidates = new HashSet<>();
         ArrayList<ArrayDeque<String>> candidateSets
                 = new ArrayList<>();
-        String testWord = "";
 
         // see String.substring(a, b) to understand the
         // bounds of the for loop
         int start = prefix.length();
+        // no candidate can be longer than the longest known word
+        int limit = Math.min( name.length(), start + longest );
         // now extract every recognised component
-        for ( int end = start + 1; end <= name.length(); end++ ) {
-            testWord = name.substring( start, end );
+        // the range is tested in place and only recognised words are copied
+        for ( int end = start + 1; end <= limit; end++ ) {
             // may need not to use the length test - especially when catching unknowns
-            if ( testWord.length() > 2
-                    && ( dictionary.isWord( testWord ) || projectVocabulary.isWord( testWord ) ) ) {
-                candidates.add( testWord ); 
+            if ( end - start > 2
+                    && ( dictionary.isWord( name, start, end ) 
+                        || projectVocabulary.isWord( name, start, end ) ) ) {
+                candidates.add( name.substring( start, end ) ); 
             }
         }
         // at the end of the name
@@ -242,8 +266,8 @@ class SingleCaseTokeniser {
             ArrayDeque<String> remainder = new ArrayDeque<>();
             // prevents the loop falling through and a
             // meaningless "" being added to the list of component words
-            if ( testWord.length() > 0 ) {
-                remainder.add( testWord );
+            if ( start < name.length() ) {
+                remainder.add( name.substring( start ) );
             }
             candidateSets.add( remainder );
         }
@@ -251,7 +275,7 @@ class SingleCaseTokeniser {
             // now recurse
             ArrayList<ArrayDeque<String>> subCandidateSet;
             for ( String candidate : candidates ) {
-                subCandidateSet = splitForwards( prefix + candidate, name );
+                subCandidateSet = splitForwards( prefix + candidate, name, longest );
                 // add the candidate to the front of each returned deque
                 for ( ArrayDeque<String> subCandidate : subCandidateSet ) {
                     subCandidate.addFirst( candidate );
@@ -263,23 +287,25 @@ class SingleCaseTokeniser {
         return candidateSets;
     }
 
-    private ArrayList<ArrayDeque<String>> splitBackwards ( String suffix, String name ) {
+    private ArrayList<ArrayDeque<String>> splitBackwards ( 
+            String suffix, String name, int longest ) {
         HashSet<String> candidates = new HashSet<>();
         ArrayList<ArrayDeque<String>> candidateSets
                 = new ArrayList<>();
-        String testWord = "";
 
         // see String.substring(a, b) to understand the
         // bounds of the for loop
         int start = name.length() - suffix.length();
 
+        // no candidate can be longer than the longest known word
+        int limit = Math.max( 0, start - longest );
         // now extract every recognised component
-        for ( int end = start - 1; end >= 0; end-- ) {
-            testWord = name.substring( end, start );
+        for ( int end = start - 1; end >= limit; end-- ) {
             // may need not to use the length test - especially when catching unknowns
-            if ( testWord.length() > 2
-                    && ( dictionary.isWord( testWord ) || projectVocabulary.isWord( testWord ) ) ) {
-                candidates.add( testWord );
+            if ( start - end > 2
+                    && ( dictionary.isWord( name, end, start ) 
+                        || projectVocabulary.isWord( name, end, start ) ) ) {
+                candidates.add( name.substring( end, start ) );
             }
         }
         // at the end of the name
@@ -289,8 +315,8 @@ class SingleCaseTokeniser {
             ArrayDeque<String> remainder = new ArrayDeque<>();
             // the stop condition is more difficult to interpret for backwards
             // so we may end up with an extra recursive call
-            if ( testWord.length() > 0 ) {
-                remainder.add( testWord );
+            if ( start > 0 ) {
+                remainder.add( name.substring( 0, start ) );
             }
             candidateSets.add( remainder );
         }
@@ -298,7 +324,7 @@ class SingleCaseTokeniser {
             // now recurse
             ArrayList<ArrayDeque<String>> subCandidateSet;
             for ( String candidate : candidates ) {
-                subCandidateSet = splitBackwards( candidate + suffix, name );
+                subCandidateSet = splitBackwards( candidate + suffix, name, longest );
                 // add the candidate to the front of each returned deque
                 for ( ArrayDeque<String> subCandidate : subCandidateSet ) {
                     subCandidate.addLast( candidate );
@@ -310,6 +336,11 @@ class SingleCaseTokeniser {
         return candidateSets;
     }
 
+    // the length of the longest word in the dictionaries or the vocabulary
+    private int longestWord () {
+        return Math.max( this.dictionary.maximumWordLength(), 
+                this.projectVocabulary.maximumWordLength() );
+    }
     
     private List<String> findTheBest ( ArrayList<ArrayDeque<String>> candidates ) {
         ArrayDeque<String> best = null;
@@ -419,34 +450,22 @@ class SingleCaseTokeniser {
     // performs a percentage known type test combining the dictionary and
     // the vocabulary.
     private int combinedScore ( String[] words ) {
-        int knownCount = 0;
-        for ( int i = 0; i < words.length; i++ ) {
-            if ( this.dictionary.isWord( words[i] )
-                    || this.projectVocabulary.isWord( words[i] ) ) {
-                knownCount++;
-            }
-        }
+        List<String> tokens = Arrays.asList( words );
+        BitSet known = new BitSet( words.length );
+        this.dictionary.markKnown( tokens, known );
+        this.projectVocabulary.markKnown( tokens, known );
 
-        return (int) ( knownCount * 100 / words.length );
+        return (int) ( known.cardinality() * 100 / words.length );
     }
 
     // Review
+    // the tokens are marked by each dictionary in one call, rather than
+    // looked up one at a time in both
     private int weightedCombinedScore ( List<String> tokens ) {
-        int knownCount = 0;
-        int knownVocabularyCount = 0;
-        boolean isDictionaryWord;
-        boolean isVocabularyWord;
-
-        for ( String token : tokens ) {
-            isDictionaryWord = this.dictionary.isWord( token );
-            isVocabularyWord = this.projectVocabulary.isWord( token );
-            if ( isDictionaryWord || isVocabularyWord  ) {
-                knownCount++;
-                if ( isVocabularyWord ) {
-                    knownVocabularyCount++;
-                }
-            }
-        }
+        BitSet known = new BitSet( tokens.size() );
+        int knownVocabularyCount = this.projectVocabulary.markKnown( tokens, known );
+        this.dictionary.markKnown( tokens, known );
+        int knownCount = known.cardinality();
 
         // add the count of vocabulary words found as a weight
         return knownVocabularyCount + (int) ( knownCount * 100 / tokens.size() );
@@ -469,11 +488,13 @@ class SingleCaseTokeniser {
     private int parsimonyScore ( String[] words ) {
         int totalLength = 0;
         int knownLength = 0;
+        BitSet known = new BitSet( words.length );
+        this.dictionary.markKnown( Arrays.asList( words ), known );
 
-        for ( String word : words ) {
-            totalLength += word.length();
-            if ( this.dictionary.isWord( word ) ) {
-                knownLength += word.length();
+        for ( int i = 0; i < words.length; i++ ) {
+            totalLength += words[i].length();
+            if ( known.get( i ) ) {
+                knownLength += words[i].length();
             }
         }
 
@@ -483,57 +504,59 @@ class SingleCaseTokeniser {
     // only tests for contrived terms using real words
     // does *not* claim a neologism simply because
     // something unknown has a recognised prefix or suffix
-    private boolean isNeologism ( String token ) {
+    // affixes are recorded by length and the candidate words are tested
+    // in place as ranges of the token
+    private boolean isNeologism ( CharSequence token ) {
 
-        Integer longestPrefix = this.prefixDictionary.getLongest();
-        Integer longestSuffix = this.suffixDictionary.getLongest();
+        int longestPrefix = this.prefixDictionary.getLongest();
+        int longestSuffix = this.suffixDictionary.getLongest();
+        int length = token.length();
 
-        Boolean hasPrefix = false;
-        Boolean hasSuffix = false;
+        boolean hasPrefix = false;
+        boolean hasSuffix = false;
 
-        ArrayList<String> prefixes = new ArrayList<>();
-        ArrayList<String> suffixes = new ArrayList<>();
+        int[] prefixes = new int[Math.max( 0, Math.min( length - 1, longestPrefix ) )];
+        int prefixCount = 0;
+        int[] suffixes = new int[Math.max( 0, Math.min( length - 1, longestSuffix - 1 ) )];
+        int suffixCount = 0;
 
         // now hunt for a prefix
         // upper bound in terms of the token length is an interesting issue
-        String candidatePrefix;
-        for ( int i = 0; i < token.length() - 1 && i < longestPrefix; i++ ) {
-            candidatePrefix = token.substring( 0, i + 1 );
-            if ( this.prefixDictionary.isWord( candidatePrefix ) ) {
-                prefixes.add( candidatePrefix );
+        for ( int i = 0; i < length - 1 && i < longestPrefix; i++ ) {
+            if ( this.prefixDictionary.isWord( token, 0, i + 1 ) ) {
+                prefixes[prefixCount++] = i + 1;
             }
         }
 
         // and now look for a suffix
-        String candidateSuffix;
-        for ( int i = token.length() - 1; i > 0 && ( token.length() - i < longestSuffix ); i-- ) {
-            candidateSuffix = token.substring( i );
-            if ( this.suffixDictionary.isWord( candidateSuffix ) ) {
-                suffixes.add( candidateSuffix );
+        for ( int i = length - 1; i > 0 && ( length - i < longestSuffix ); i-- ) {
+            if ( this.suffixDictionary.isWord( token, i, length ) ) {
+                suffixes[suffixCount++] = length - i;
             }
         }
 
         // if we have found neither we don't have a simple neologism
-        if ( prefixes.isEmpty() && suffixes.isEmpty() ) {
+        if ( prefixCount == 0 && suffixCount == 0 ) {
             return false;
         }
 
         // now check whether what we have found prefixes, or suffixes a known word
-        if ( !prefixes.isEmpty() ) {
-            for ( String prefix : prefixes ) {
-                // create the candidate term
-                String candidateWord = token.substring( prefix.length() );
-                if ( suffixes.isEmpty() ) {
+        if ( prefixCount > 0 ) {
+            for ( int p = 0; p < prefixCount; p++ ) {
+                // the candidate term follows the prefix
+                int prefix = prefixes[p];
+                if ( suffixCount == 0 ) {
                     // then we test the word
-                    if ( this.dictionary.isWord( candidateWord ) ) {
+                    if ( this.dictionary.isWord( token, prefix, length ) ) {
                         hasPrefix = true;
                     }
                 }
                 else {
                     // we need to strip the suffix as well to find the word
-                    for ( String suffix : suffixes ) {
-                        if ( suffix.length() < candidateWord.length() // guard prevents array out of bounds exception
-                                && this.dictionary.isWord( candidateWord.substring( 0, ( candidateWord.length() - suffix.length() ) ) ) ) {
+                    for ( int s = 0; s < suffixCount; s++ ) {
+                        int suffix = suffixes[s];
+                        if ( suffix < length - prefix // guard prevents array out of bounds exception
+                                && this.dictionary.isWord( token, prefix, length - suffix ) ) {
                             hasPrefix = true;
                             hasSuffix = true;
                         }
@@ -543,8 +566,8 @@ class SingleCaseTokeniser {
         }
         else {
             // no prefix, but we have a suffix
-            for ( String suffix : suffixes ) {
-                if ( this.dictionary.isWord( token.substring( 0, ( token.length() - suffix.length() ) ) ) ) {
+            for ( int s = 0; s < suffixCount; s++ ) {
+                if ( this.dictionary.isWord( token, 0, length - suffixes[s] ) ) {
                     hasSuffix = true;
                 }
             }
@@ -580,8 +603,8 @@ class SingleCaseTokeniser {
                     }
                     // now add the next
                     test.append( words[j + 1] );
-                    if ( this.dictionary.isWord( test.toString() )
-                            || isNeologism( test.toString() ) ) {
+                    if ( this.dictionary.isWord( test, 0, test.length() )
+                            || isNeologism( test ) ) {
                         chainLength++;
                         replacement.removeLast();
                         replacement.addLast( test.toString() );
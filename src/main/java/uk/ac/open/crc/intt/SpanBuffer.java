@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.Arrays;
+
+/**
+ * A reusable, growable list of character ranges used to pass tokens between
+ * the stages of tokenisation without creating strings. Each entry records
+ * the sequence containing the token and the bounds of the token.
+ *
+ */
+final class SpanBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private CharSequence[] sources;
+    private int[] bounds;
+    private int size;
+
+    SpanBuffer() {
+        this.sources = new CharSequence[INITIAL_CAPACITY];
+        this.bounds = new int[INITIAL_CAPACITY * 2];
+        this.size = 0;
+    }
+
+    /**
+     * Appends a range.
+     * @param source the sequence containing the token
+     * @param start the index of the first character of the token
+     * @param end the index following the last character of the token
+     */
+    void add( CharSequence source, int start, int end ) {
+        if ( this.size == this.sources.length ) {
+            this.sources = Arrays.copyOf( this.sources, this.size * 2 );
+            this.bounds = Arrays.copyOf( this.bounds, this.size * 4 );
+        }
+        this.sources[this.size] = source;
+        this.bounds[this.size * 2] = start;
+        this.bounds[this.size * 2 + 1] = end;
+        this.size++;
+    }
+
+    /**
+     * Empties the buffer, releasing references to the sources.
+     */
+    void clear() {
+        Arrays.fill( this.sources, 0, this.size, null );
+        this.size = 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    CharSequence source( int index ) {
+        return this.sources[index];
+    }
+
+    int start( int index ) {
+        return this.bounds[index * 2];
+    }
+
+    int end( int index ) {
+        return this.bounds[index * 2 + 1];
+    }
+
+    int length( int index ) {
+        return end( index ) - start( index );
+    }
+
+    /**
+     * Creates the string for an entry.
+     * @param index the index of an entry
+     * @return the token
+     */
+    String token( int index ) {
+        return this.sources[index].subSequence( start( index ), end( index ) ).toString();
+    }
+}
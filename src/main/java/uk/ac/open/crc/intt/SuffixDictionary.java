@@ -18,8 +18,8 @@
 package uk.ac.open.crc.intt;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import uk.ac.open.crc.intt.text.StaticWordSet;
 
 /**
  * A dictionary of suffixes.
@@ -29,7 +29,7 @@ class SuffixDictionary implements AffixDictionary {
 
     private Integer longest = 0;
 
-    private HashSet<String> suffixSet;
+    private StaticWordSet suffixSet;
     private List<String> suffixes;
 
     protected String name = "Suffix Dictionary";
@@ -46,7 +46,7 @@ class SuffixDictionary implements AffixDictionary {
     SuffixDictionary ( List<String> suffixes, AggregatedDictionary aggregatedDictionary ) {
         this.dictionary = aggregatedDictionary;
         this.suffixes = suffixes;
-        this.suffixSet = new HashSet<>( this.suffixes );
+        this.suffixSet = new StaticWordSet( this.suffixes );
         for ( String suffix : suffixes ) {
             if ( suffix.length() > longest ) {
                 longest = suffix.length();
@@ -78,7 +78,12 @@ class SuffixDictionary implements AffixDictionary {
      */
     @Override
     public boolean isWord ( String token ) {
-        return suffixSet.contains( token.toLowerCase() );
+        return suffixSet.contains( token );
+    }
+
+    @Override
+    public boolean isWord ( CharSequence text, int start, int end ) {
+        return suffixSet.contains( text, start, end );
     }
 
     
@@ -106,8 +111,8 @@ class SuffixDictionary implements AffixDictionary {
 
         for ( String suffix : this.suffixes ) {
             if ( token.endsWith( suffix ) ) {
-                String test = token.substring( 0, token.lastIndexOf( suffix ) );
-                isNeologism = dictionary.isWord( test );
+                isNeologism = dictionary.isWord( 
+                        token, 0, token.length() - suffix.length() );
                 if ( isNeologism ) {
                     break;
                 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import uk.ac.open.crc.intt.text.CaseFolding;
+
+/**
+ * Maps tokens to integer identifiers. Tokens are case insensitive, in the 
+ * same way as the dictionaries, so "Value" and "value" share an id.
+ * 
+ * <p>
+ * The table is created with a set of seed tokens, normally the entries of
+ * the dictionaries used by the tokeniser, which are given the ids 0 to 
+ * {@code seedCount() - 1} in alphabetical order. The ids of the seeds are 
+ * therefore stable for a given set of dictionaries. Other tokens are given 
+ * ids in the order in which they are first seen. Seeds are looked up 
+ * without creating any objects.
+ * </p>
+ * 
+ * <p>
+ * Instances are thread safe and may be shared by tokenisers used in 
+ * different threads. A table can be saved alongside the results that use 
+ * its ids and loaded later to decode them or to continue assigning ids.
+ * </p>
+ *
+ */
+public final class TokenIdTable {
+    private static final String HEADER = "#intt-token-ids seeds=";
+
+    private final String[] seeds;
+    private final int[] slots;
+    private final int slotMask;
+
+    private final ConcurrentHashMap<String, Integer> assignedIds;
+    private final List<String> assignedTokens;
+
+    /**
+     * Creates a table with the supplied seeds.
+     * @param seeds a collection of tokens to be assigned stable ids
+     */
+    public TokenIdTable( Collection<String> seeds ) {
+        this( sortedSeeds( seeds ), new ArrayList<>() );
+    }
+
+    private TokenIdTable( String[] seeds, List<String> assigned ) {
+        this.seeds = seeds;
+        int capacity = 16;
+        while ( capacity < seeds.length * 2 ) {
+            capacity <<= 1;
+        }
+        this.slots = new int[capacity];
+        this.slotMask = capacity - 1;
+        for ( int id = 0; id < seeds.length; id++ ) {
+            String seed = seeds[id];
+            int slot = CaseFolding.hash( seed, 0, seed.length() ) & this.slotMask;
+            while ( this.slots[slot] != 0 ) {
+                slot = ( slot + 1 ) & this.slotMask;
+            }
+            this.slots[slot] = id + 1;
+        }
+
+        this.assignedIds = new ConcurrentHashMap<>();
+        this.assignedTokens = new ArrayList<>();
+        for ( String token : assigned ) {
+            this.assignedIds.put( token, this.seeds.length + this.assignedTokens.size() );
+            this.assignedTokens.add( token );
+        }
+    }
+
+    /**
+     * Recovers the id of a token, assigning a new id if the token has not 
+     * been seen before.
+     * @param token a token
+     * @return the id of the token
+     */
+    public int id( String token ) {
+        return id( token, 0, token.length() );
+    }
+
+    /**
+     * Recovers the id of the token formed by the characters from 
+     * {@code start} (inclusive) to {@code end} (exclusive) of the sequence,
+     * assigning a new id if the token has not been seen before.
+     * @param text a character sequence
+     * @param start the index of the first character of the token
+     * @param end the index following the last character of the token
+     * @return the id of the token
+     */
+    public int id( CharSequence text, int start, int end ) {
+        int id = findSeed( text, start, end );
+        if ( id >= 0 ) {
+            return id;
+        }
+        return this.assignedIds.computeIfAbsent( 
+                CaseFolding.fold( text, start, end ), 
+                this::assign );
+    }
+
+    /**
+     * Recovers the id of a token without assigning a new id.
+     * @param token a token
+     * @return the id of the token, or -1 if the token has no id
+     */
+    public int find( String token ) {
+        int id = findSeed( token, 0, token.length() );
+        if ( id >= 0 ) {
+            return id;
+        }
+        Integer assigned = this.assignedIds.get( CaseFolding.fold( token ) );
+        return assigned == null ? -1 : assigned;
+    }
+
+    /**
+     * Recovers the token with an id. The token is in lower case.
+     * @param id an id
+     * @return the token
+     * @throws IndexOutOfBoundsException if no token has the id
+     */
+    public String token( int id ) {
+        if ( id >= 0 && id < this.seeds.length ) {
+            return this.seeds[id];
+        }
+        synchronized ( this.assignedTokens ) {
+            return this.assignedTokens.get( id - this.seeds.length );
+        }
+    }
+
+    /**
+     * Recovers the number of ids assigned.
+     * @return the number of tokens in the table
+     */
+    public int size() {
+        synchronized ( this.assignedTokens ) {
+            return this.seeds.length + this.assignedTokens.size();
+        }
+    }
+
+    /**
+     * Recovers the number of seed tokens, which is also the lowest id 
+     * assigned to a token that is not a seed.
+     * @return the number of seeds
+     */
+    public int seedCount() {
+        return this.seeds.length;
+    }
+
+    /**
+     * Writes the table to a file as UTF-8 text with one token per line in
+     * id order.
+     * @param path the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save( Path path ) throws IOException {
+        List<String> assigned;
+        synchronized ( this.assignedTokens ) {
+            assigned = new ArrayList<>( this.assignedTokens );
+        }
+        try ( BufferedWriter out = Files.newBufferedWriter( path, StandardCharsets.UTF_8 ) ) {
+            out.write( HEADER );
+            out.write( Integer.toString( this.seeds.length ) );
+            out.newLine();
+            for ( String seed : this.seeds ) {
+                out.write( seed );
+                out.newLine();
+            }
+            for ( String token : assigned ) {
+                out.write( token );
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #save(Path)}. The ids in the table 
+     * read are the same as those in the table saved.
+     * @param path the path of the file
+     * @return a token id table
+     * @throws IOException if the file cannot be read or is not a token 
+     * id table
+     */
+    public static TokenIdTable load( Path path ) throws IOException {
+        try ( BufferedReader in = Files.newBufferedReader( path, StandardCharsets.UTF_8 ) ) {
+            String header = in.readLine();
+            if ( header == null || ! header.startsWith( HEADER ) ) {
+                throw new IOException( "Not a token id table: " + path );
+            }
+            int seedCount;
+            try {
+                seedCount = Integer.parseInt( header.substring( HEADER.length() ) );
+            }
+            catch ( NumberFormatException e ) {
+                throw new IOException( "Invalid token id table header: " + header, e );
+            }
+            List<String> tokens = new ArrayList<>();
+            String line;
+            while ( ( line = in.readLine() ) != null ) {
+                tokens.add( line );
+            }
+            if ( seedCount < 0 || seedCount > tokens.size() ) {
+                throw new IOException( "Invalid seed count in token id table: " + seedCount );
+            }
+            return new TokenIdTable( 
+                    tokens.subList( 0, seedCount ).toArray( new String[seedCount] ),
+                    tokens.subList( seedCount, tokens.size() ) );
+        }
+    }
+
+    private int findSeed( CharSequence text, int start, int end ) {
+        int slot = CaseFolding.hash( text, start, end ) & this.slotMask;
+        int entry;
+        while ( ( entry = this.slots[slot] ) != 0 ) {
+            if ( CaseFolding.matches( this.seeds[entry - 1], text, start, end ) ) {
+                return entry - 1;
+            }
+            slot = ( slot + 1 ) & this.slotMask;
+        }
+        return -1;
+    }
+
+    // called once per token by computeIfAbsent
+    private Integer assign( String token ) {
+        synchronized ( this.assignedTokens ) {
+            this.assignedTokens.add( token );
+            return this.seeds.length + this.assignedTokens.size() - 1;
+        }
+    }
+
+    private static String[] sortedSeeds( Collection<String> seeds ) {
+        TreeSet<String> sorted = new TreeSet<>();
+        seeds.forEach( seed -> sorted.add( CaseFolding.fold( seed ) ) );
+        return sorted.toArray( new String[sorted.size()] );
+    }
+}
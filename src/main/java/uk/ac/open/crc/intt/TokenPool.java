@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded pool of canonical token instances that allows the tokens 
+ * produced by one or more tokenisers to share {@code String} instances.
+ * 
+ * <p>
+ * The pool has two parts. A fixed set of seed tokens, typically the entries 
+ * of the dictionaries, is held for the life of the pool so that tokens 
+ * matching a seed exactly are always returned as the seed instance. All 
+ * other tokens are held in a fixed size, direct mapped cache in which 
+ * a new token replaces whatever token occupied its slot. The retained heap 
+ * is therefore bounded by the number of seeds and the capacity of the cache, 
+ * and frequent tokens tend to remain in the cache. Tokens are matched 
+ * exactly, i.e. the pool is case sensitive.
+ * </p>
+ * 
+ * <p>
+ * Instances are thread safe and lock free, so a single pool can be shared 
+ * by tokenisers used in different threads. Where two threads race to add 
+ * the same token to an empty slot both may receive their own instance, 
+ * which affects only the degree of sharing.
+ * </p>
+ *
+ */
+public final class TokenPool {
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private final String[] seeds;
+    private final int seedMask;
+    private final int seedCount;
+
+    private final AtomicReferenceArray<String> cache;
+    private final int cacheMask;
+
+    /**
+     * Creates an empty pool.
+     * @param capacity the maximum number of tokens held in addition to 
+     * the seeds. The value is rounded up to a power of two.
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public TokenPool( int capacity ) {
+        this( capacity, null );
+    }
+
+    /**
+     * Creates a pool seeded with a set of canonical tokens.
+     * @param capacity the maximum number of tokens held in addition to 
+     * the seeds. The value is rounded up to a power of two.
+     * @param seeds a collection of tokens to be held for the life of the 
+     * pool, or {@code null}
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public TokenPool( int capacity, Collection<String> seeds ) {
+        if ( capacity <= 0 ) {
+            throw new IllegalArgumentException( 
+                    "Token pool capacity must be positive: " + capacity );
+        }
+        int cacheSize = powerOfTwo( capacity );
+        this.cache = new AtomicReferenceArray<>( cacheSize );
+        this.cacheMask = cacheSize - 1;
+        
+        int seedSize = powerOfTwo( seeds == null ? 0 : seeds.size() * 2 );
+        this.seeds = new String[seedSize];
+        this.seedMask = seedSize - 1;
+        int count = 0;
+        if ( seeds != null ) {
+            for ( String seed : seeds ) {
+                if ( addSeed( seed ) ) {
+                    count++;
+                }
+            }
+        }
+        this.seedCount = count;
+    }
+
+    /**
+     * Recovers the canonical instance of a token.
+     * @param token a token
+     * @return the pooled instance equal to the token, or the token itself if 
+     * there was none, in which case the token is added to the pool
+     */
+    public String intern( String token ) {
+        int hash = spread( token.hashCode() );
+        String seed = findSeed( token, 0, token.length(), hash );
+        if ( seed != null ) {
+            return seed;
+        }
+        int slot = hash & this.cacheMask;
+        String cached = this.cache.get( slot );
+        if ( token.equals( cached ) ) {
+            return cached;
+        }
+        this.cache.lazySet( slot, token );
+        return token;
+    }
+
+    /**
+     * Recovers the canonical instance of the token formed by the characters
+     * from {@code start} (inclusive) to {@code end} (exclusive) of the 
+     * sequence. A string is only created if the token is not in the pool.
+     * @param text a character sequence
+     * @param start the index of the first character of the token
+     * @param end the index following the last character of the token
+     * @return the pooled instance of the token
+     */
+    public String intern( CharSequence text, int start, int end ) {
+        int hash = spread( hash( text, start, end ) );
+        String seed = findSeed( text, start, end, hash );
+        if ( seed != null ) {
+            return seed;
+        }
+        int slot = hash & this.cacheMask;
+        String cached = this.cache.get( slot );
+        if ( cached != null && matches( cached, text, start, end ) ) {
+            return cached;
+        }
+        String token = text.subSequence( start, end ).toString();
+        this.cache.lazySet( slot, token );
+        return token;
+    }
+
+    /**
+     * Recovers the maximum number of tokens held in addition to the seeds.
+     * @return the capacity of the pool
+     */
+    public int capacity() {
+        return this.cache.length();
+    }
+
+    /**
+     * Recovers the number of distinct seed tokens.
+     * @return the number of seeds
+     */
+    public int seedCount() {
+        return this.seedCount;
+    }
+
+    private boolean addSeed( String seed ) {
+        int slot = spread( seed.hashCode() ) & this.seedMask;
+        String key;
+        while ( ( key = this.seeds[slot] ) != null ) {
+            if ( key.equals( seed ) ) {
+                return false;
+            }
+            slot = ( slot + 1 ) & this.seedMask;
+        }
+        this.seeds[slot] = seed;
+        return true;
+    }
+
+    private String findSeed( CharSequence text, int start, int end, int hash ) {
+        if ( this.seedCount == 0 ) {
+            return null;
+        }
+        int slot = hash & this.seedMask;
+        String key;
+        while ( ( key = this.seeds[slot] ) != null ) {
+            if ( matches( key, text, start, end ) ) {
+                return key;
+            }
+            slot = ( slot + 1 ) & this.seedMask;
+        }
+        return null;
+    }
+
+    private static boolean matches( String key, CharSequence text, int start, int end ) {
+        if ( key.length() != end - start ) {
+            return false;
+        }
+        for ( int i = 0; i < key.length(); i++ ) {
+            if ( key.charAt( i ) != text.charAt( start + i ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the same as String.hashCode(), so the cached hash of a string is used
+    private static int hash( CharSequence text, int start, int end ) {
+        int h = 0;
+        for ( int i = start; i < end; i++ ) {
+            h = 31 * h + text.charAt( i );
+        }
+        return h;
+    }
+
+    private static int spread( int h ) {
+        return h ^ ( h >>> 16 );
+    }
+
+    private static int powerOfTwo( int size ) {
+        int capacity = MINIMUM_CAPACITY;
+        while ( capacity < size && capacity < ( 1 << 30 ) ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
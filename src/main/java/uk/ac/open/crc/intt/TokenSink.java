@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+/**
+ * Receives tokens from an {@code IdentifierNameTokeniser} as ranges of
+ * characters, so that tokens can be consumed without creating a
+ * {@code String} for each.
+ *
+ * <p>
+ * The source passed to the sink is normally the identifier name being
+ * tokenised. Where a token does not occur in the name, e.g. the expansion
+ * of a negated modal verb, the source is the token itself. A sink must not
+ * retain the source beyond the call, because the tokeniser may reuse
+ * buffers between calls.
+ * </p>
+ *
+ */
+@FunctionalInterface
+public interface TokenSink {
+
+    /**
+     * Accepts a token.
+     * @param source a character sequence containing the token
+     * @param start the index of the first character of the token
+     * @param end the index following the last character of the token
+     * @param flags the flags for the token as defined by {@link TokenSpans}
+     */
+    void accept( CharSequence source, int start, int end, int flags );
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of tokenising an identifier name expressed as the boundaries of
+ * each token within the name. The tokens are held as offsets in a single
+ * array and the token strings are only created on request.
+ *
+ * <p>
+ * Each token carries a set of flags. {@link #KNOWN} indicates that the
+ * token was found in the dictionaries used by the tokeniser and
+ * {@link #DIGIT} that the token contains one or more digits.
+ * </p>
+ *
+ */
+public final class TokenSpans {
+
+    /**
+     * Flag indicating the token is a dictionary word or known abbreviation.
+     */
+    public static final int KNOWN = 1;
+
+    /**
+     * Flag indicating the token contains a digit.
+     */
+    public static final int DIGIT = 2;
+
+    // the number of array entries per token: start, end and flags
+    static final int STRIDE = 3;
+
+    private final String identifierName;
+    private final int[] spans;
+
+    /**
+     * Creates a set of spans for the name.
+     * @param identifierName the name that was tokenised
+     * @param spans an array containing the start, end and flags of each
+     * token in turn
+     */
+    TokenSpans( String identifierName, int[] spans ) {
+        this.identifierName = identifierName;
+        this.spans = spans;
+    }
+
+    /**
+     * Recovers the name that was tokenised.
+     * @return the identifier name
+     */
+    public String identifierName() {
+        return this.identifierName;
+    }
+
+    /**
+     * Recovers the number of tokens.
+     * @return the number of tokens
+     */
+    public int size() {
+        return this.spans.length / STRIDE;
+    }
+
+    /**
+     * Recovers the offset of the first character of a token in the name.
+     * @param index the index of a token
+     * @return the offset of the first character of the token
+     */
+    public int start( int index ) {
+        return this.spans[index * STRIDE];
+    }
+
+    /**
+     * Recovers the offset following the last character of a token in
+     * the name.
+     * @param index the index of a token
+     * @return the offset following the last character of the token
+     */
+    public int end( int index ) {
+        return this.spans[index * STRIDE + 1];
+    }
+
+    /**
+     * Recovers the flags set for a token.
+     * @param index the index of a token
+     * @return the flags for the token
+     */
+    public int flags( int index ) {
+        return this.spans[index * STRIDE + 2];
+    }
+
+    /**
+     * Indicates whether a token was found in the dictionaries.
+     * @param index the index of a token
+     * @return {@code true} if the token is a known word or abbreviation
+     */
+    public boolean isKnown( int index ) {
+        return ( flags( index ) & KNOWN ) != 0;
+    }
+
+    /**
+     * Indicates whether a token contains a digit.
+     * @param index the index of a token
+     * @return {@code true} if the token contains a digit
+     */
+    public boolean containsDigit( int index ) {
+        return ( flags( index ) & DIGIT ) != 0;
+    }
+
+    /**
+     * Creates the string for a token.
+     * @param index the index of a token
+     * @return the token
+     */
+    public String token( int index ) {
+        return this.identifierName.substring( start( index ), end( index ) );
+    }
+
+    /**
+     * Creates a list of the token strings.
+     * @return a list of tokens
+     */
+    public List<String> tokens() {
+        List<String> tokens = new ArrayList<>( size() );
+        for ( int i = 0; i < size(); i++ ) {
+            tokens.add( token( i ) );
+        }
+        return tokens;
+    }
+
+    /**
+     * Provides the tokens as a string of the form "{a, b, c}".
+     * @return a descriptive string
+     */
+    @Override
+    public String toString() {
+        StringBuilder output = new StringBuilder( "{" );
+        for ( int i = 0; i < size(); i++ ) {
+            if ( i > 0 ) {
+                output.append( ", " );
+            }
+            output.append( this.identifierName, start( i ), end( i ) );
+        }
+        output.append( "}" );
+        return output.toString();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt;
+
+import java.util.Arrays;
+
+/**
+ * Holds the words a tokeniser would add to the project vocabulary until 
+ * enough have been collected, or they have been held long enough, to add 
+ * them in one batch. The characters of the words are copied into a single 
+ * buffer, so no strings are created until a word is found to be new to 
+ * the vocabulary.
+ *
+ * <p>
+ * A buffer belongs to one tokeniser and is not thread safe.
+ * </p>
+ */
+final class VocabularyBuffer {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StringBuilder text;
+    private int[] ends;
+    private int size;
+
+    private final int maximumWords;
+    private final long maximumDelay;
+    private long firstAddition;
+
+    /**
+     * Creates an empty buffer.
+     * @param maximumWords the number of words at which the buffer is due
+     * to be flushed
+     * @param maximumDelay the time in nanoseconds after the first word is
+     * added at which the buffer is due to be flushed
+     */
+    VocabularyBuffer( int maximumWords, long maximumDelay ) {
+        this.text = new StringBuilder();
+        this.ends = new int[INITIAL_CAPACITY];
+        this.size = 0;
+        this.maximumWords = maximumWords;
+        this.maximumDelay = maximumDelay;
+    }
+
+    /**
+     * Appends a copy of a range of characters.
+     * @param source the sequence containing the word
+     * @param start the index of the first character of the word
+     * @param end the index following the last character of the word
+     */
+    void add( CharSequence source, int start, int end ) {
+        if ( this.size == 0 ) {
+            this.firstAddition = System.nanoTime();
+        }
+        if ( this.size == this.ends.length ) {
+            this.ends = Arrays.copyOf( this.ends, this.size * 2 );
+        }
+        this.text.append( source, start, end );
+        this.ends[this.size++] = this.text.length();
+    }
+
+    /**
+     * Indicates whether the buffer holds as many words as it should, or 
+     * has held words for as long as it should.
+     * @return {@code true} if the buffer should be flushed
+     */
+    boolean isDue() {
+        return this.size >= this.maximumWords
+                || ( this.size > 0 
+                    && System.nanoTime() - this.firstAddition >= this.maximumDelay );
+    }
+
+    /**
+     * Reports the number of words held.
+     * @return the number of words in the buffer
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds the words held to a vocabulary and empties the buffer.
+     * @param vocabulary the vocabulary to which the words are added
+     */
+    void flushTo( ProjectVocabulary vocabulary ) {
+        if ( this.size == 0 ) {
+            return;
+        }
+        vocabulary.addAll( this.text, this.ends, this.size );
+        this.text.setLength( 0 );
+        this.size = 0;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ Copyright (C) 2026 Simon Butler
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.open.crc.intt.text.WordList;
+
+import nu.floss.wordlists.Wordlists;
+
+/**
+ * Holds the word lists used by the dictionary configurations so that each
+ * list is loaded and stored once in a JVM however many configurations use
+ * it. Lists are reference counted: each call to {@link #acquire} must be
+ * matched by a call to {@link #release} and a list is removed from the
+ * registry when its count falls to zero.
+ *
+ */
+final class WordListRegistry {
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger( WordListRegistry.class );
+
+    private static final Map<Wordlists, Entry> ENTRIES = new EnumMap<>( Wordlists.class );
+
+    private WordListRegistry() {
+        // static methods only
+    }
+
+    /**
+     * Retrieves the word lists, loading any that are not already held. Lists
+     * that need loading are loaded concurrently, without holding the lock 
+     * on the registry, so lists that are already held can be acquired and
+     * released meanwhile. A caller that needs a list being loaded for 
+     * another waits for it to be loaded.
+     *
+     * @param lists the word lists required
+     * @return the word lists in the order requested
+     * @throws IOException if any of the lists cannot be read, in which case
+     * no references are taken
+     */
+    static List<WordList> acquire( Wordlists... lists ) throws IOException {
+        List<Entry> entries = new ArrayList<>( lists.length );
+        List<Wordlists> missing = new ArrayList<>();
+        List<Entry> loading = new ArrayList<>();
+        synchronized ( WordListRegistry.class ) {
+            for ( Wordlists list : lists ) {
+                Entry entry = ENTRIES.get( list );
+                if ( entry == null ) {
+                    entry = new Entry();
+                    ENTRIES.put( list, entry );
+                    missing.add( list );
+                    loading.add( entry );
+                }
+                // the reference keeps the entry while it is loaded
+                entry.references++;
+                entries.add( entry );
+            }
+        }
+
+        if ( ! missing.isEmpty() ) {
+            try {
+                List<WordList> loaded = MainDictionary.loadWordLists(
+                        missing.toArray( new Wordlists[missing.size()] ) );
+                for ( int i = 0; i < loading.size(); i++ ) {
+                    loading.get( i ).wordList.complete( loaded.get( i ) );
+                }
+            }
+            catch ( IOException | RuntimeException e ) {
+                loading.forEach( entry -> entry.wordList.completeExceptionally( e ) );
+            }
+        }
+
+        try {
+            List<WordList> wordLists = new ArrayList<>( lists.length );
+            for ( Entry entry : entries ) {
+                wordLists.add( entry.wordList.get() );
+            }
+            return wordLists;
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            abandon( lists, entries );
+            throw new InterruptedIOException( "Interrupted waiting for word lists" );
+        }
+        catch ( ExecutionException e ) {
+            abandon( lists, entries );
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException( "Word lists could not be loaded", cause );
+        }
+    }
+
+    // gives up the references taken by a failed call to acquire, and 
+    // removes the lists that failed to load so that they are loaded again
+    // when next acquired
+    private static synchronized void abandon( Wordlists[] lists, List<Entry> entries ) {
+        for ( int i = 0; i < lists.length; i++ ) {
+            Entry entry = entries.get( i );
+            if ( --entry.references == 0 || entry.wordList.isCompletedExceptionally() ) {
+                ENTRIES.remove( lists[i], entry );
+            }
+        }
+    }
+
+    /**
+     * Gives up a reference to each of the word lists. A list is removed from
+     * the registry when it is no longer referenced, so that it can be
+     * reclaimed once the dictionaries using it are no longer reachable.
+     *
+     * @param lists the word lists previously acquired
+     */
+    static synchronized void release( Wordlists... lists ) {
+        for ( Wordlists list : lists ) {
+            Entry entry = ENTRIES.get( list );
+            if ( entry == null ) {
+                LOGGER.warn( "Release of word list \"{}\" that is not held", list.tag() );
+            }
+            else if ( --entry.references == 0 ) {
+                ENTRIES.remove( list );
+            }
+        }
+    }
+
+    /**
+     * Tests whether a word list is held by the registry.
+     * @param list a word list
+     * @return {@code true} if the list is loaded and referenced
+     */
+    static synchronized boolean isLoaded( Wordlists list ) {
+        Entry entry = ENTRIES.get( list );
+        return entry != null 
+                && entry.wordList.isDone() 
+                && ! entry.wordList.isCompletedExceptionally();
+    }
+
+    /**
+     * Reports the number of references held to a word list.
+     * @param list a word list
+     * @return the number of references, or zero if the list is not loaded
+     */
+    static synchronized int references( Wordlists list ) {
+        Entry entry = ENTRIES.get( list );
+        return entry == null ? 0 : entry.references;
+    }
+
+    private static final class Entry {
+        // completed once the list is loaded
+        private final CompletableFuture<WordList> wordList = new CompletableFuture<>();
+        private int references = 0;
+    }
+}
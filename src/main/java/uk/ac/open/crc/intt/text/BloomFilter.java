@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+/**
+ * A case insensitive blocked Bloom filter over words. Each word is mapped
+ * to a single block of 512 bits, the size of a typical cache line, and all
+ * the bits for the word are set within that block, so a query reads one
+ * cache line. A negative answer is definite, a positive answer means the
+ * word may be present.
+ *
+ * <p>
+ * Words are hashed after folding, as defined by {@link CaseFolding}, so
+ * the filter agrees with {@link WordSet} about which words are equal.
+ * Instances are not thread safe. Callers that add words after publication
+ * are responsible for synchronisation.
+ * </p>
+ */
+public final class BloomFilter {
+    private static final int LONGS_PER_BLOCK = 8;
+    private static final int BLOCK_BITS = LONGS_PER_BLOCK * Long.SIZE;
+    private static final int MAXIMUM_HASH_COUNT = 16;
+    private static final double LN2 = Math.log( 2 );
+
+    private final long[] bits;
+    private final int blockCount;
+    private final int hashCount;
+    private final int expectedEntries;
+
+    /**
+     * Creates a filter sized to give the false positive rate for the number
+     * of entries, using no more than the memory budget.
+     * @param expectedEntries the number of words expected
+     * @param falsePositiveRate the desired false positive rate, greater than
+     * 0 and less than 1
+     * @param maximumBytes the most memory the filter may use for its bits;
+     * if the rate cannot be met within the budget the rate is higher
+     * @throws IllegalArgumentException if the rate is out of range or the
+     * budget is smaller than one block
+     */
+    public BloomFilter( int expectedEntries, double falsePositiveRate, long maximumBytes ) {
+        if ( ! ( falsePositiveRate > 0 && falsePositiveRate < 1 ) ) {
+            throw new IllegalArgumentException(
+                    "False positive rate must be between 0 and 1: " + falsePositiveRate );
+        }
+        if ( maximumBytes < BLOCK_BITS / Byte.SIZE ) {
+            throw new IllegalArgumentException(
+                    "Memory budget smaller than one block: " + maximumBytes );
+        }
+        int entries = Math.max( 1, expectedEntries );
+        double wanted = -entries * Math.log( falsePositiveRate ) / ( LN2 * LN2 );
+        double budget = Math.min( (double) maximumBytes * Byte.SIZE,
+                (double) Integer.MAX_VALUE * Long.SIZE );
+        long blocks = (long) Math.ceil( Math.min( wanted, budget ) / BLOCK_BITS );
+        blocks = Math.max( 1, Math.min( blocks, (long) ( budget / BLOCK_BITS ) ) );
+
+        this.blockCount = (int) blocks;
+        this.bits = new long[this.blockCount * LONGS_PER_BLOCK];
+        this.expectedEntries = entries;
+        double bitsPerEntry = (double) this.blockCount * BLOCK_BITS / entries;
+        this.hashCount = (int) Math.max( 1,
+                Math.min( MAXIMUM_HASH_COUNT, Math.round( bitsPerEntry * LN2 ) ) );
+    }
+
+    /**
+     * Adds a word to the filter.
+     * @param word a word
+     */
+    public void add( String word ) {
+        add( word, 0, word.length() );
+    }
+
+    /**
+     * Adds the characters from {@code start} (inclusive) to {@code end}
+     * (exclusive) of the sequence to the filter.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     */
+    public void add( CharSequence text, int start, int end ) {
+        long hash = hash( text, start, end );
+        int base = block( hash );
+        int h1 = (int) hash;
+        int h2 = (int) ( hash >>> 32 ) | 1;
+        for ( int i = 0; i < this.hashCount; i++ ) {
+            int bit = ( h1 + i * h2 ) & ( BLOCK_BITS - 1 );
+            this.bits[base + ( bit >>> 6 )] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Tests whether a word may be in the filter.
+     * @param word a word
+     * @return {@code false} if the word is definitely not in the filter
+     */
+    public boolean mightContain( String word ) {
+        return mightContain( word, 0, word.length() );
+    }
+
+    /**
+     * Tests whether a range of characters may be a word in the filter.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code false} if the range is definitely not in the filter
+     */
+    public boolean mightContain( CharSequence text, int start, int end ) {
+        long hash = hash( text, start, end );
+        int base = block( hash );
+        int h1 = (int) hash;
+        int h2 = (int) ( hash >>> 32 ) | 1;
+        for ( int i = 0; i < this.hashCount; i++ ) {
+            int bit = ( h1 + i * h2 ) & ( BLOCK_BITS - 1 );
+            if ( ( this.bits[base + ( bit >>> 6 )] & ( 1L << bit ) ) == 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports the number of words the filter was sized for.
+     * @return the expected number of entries
+     */
+    public int expectedEntries() {
+        return this.expectedEntries;
+    }
+
+    /**
+     * Reports the number of bits set for each word.
+     * @return the number of hash functions
+     */
+    public int hashCount() {
+        return this.hashCount;
+    }
+
+    /**
+     * Reports the memory used by the bits of the filter.
+     * @return the size of the filter in bytes
+     */
+    public long byteSize() {
+        return (long) this.bits.length * Long.BYTES;
+    }
+
+    // selects the first long of a block from the high bits of a remixed hash
+    private int block( long hash ) {
+        long mixed = ( hash ^ ( hash >>> 29 ) ) * 0xbf58476d1ce4e5b9L;
+        return (int) ( ( ( mixed >>> 32 ) * this.blockCount ) >>> 32 ) * LONGS_PER_BLOCK;
+    }
+
+    private static long hash( CharSequence text, int start, int end ) {
+        long h = 0xcbf29ce484222325L;
+        for ( int i = start; i < end; i++ ) {
+            h = ( h ^ CaseFolding.fold( text.charAt( i ) ) ) * 0x100000001b3L;
+        }
+        // finaliser from MurmurHash3
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
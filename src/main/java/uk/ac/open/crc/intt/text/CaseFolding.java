@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+/**
+ * The case folding, hashing and comparison shared by the dictionary stores. 
+ * Characters are folded one at a time, so a folded string is always the 
+ * same length as the original, and the folding does not depend on the 
+ * default locale. ASCII characters, which make up almost all identifier 
+ * names, are folded arithmetically. Other characters are folded by 
+ * converting to upper case and then lower case, the same per character 
+ * mapping used by {@code String.equalsIgnoreCase}, so that, for example, 
+ * the Turkish dotted and dotless i both fold to 'i'.
+ *
+ * <p>
+ * Unlike {@code String.toLowerCase()}, the methods here give the same 
+ * result under every JVM locale.
+ * </p>
+ */
+public final class CaseFolding {
+
+    private CaseFolding() {
+        // static methods only
+    }
+
+    /**
+     * Folds a single character.
+     * @param c a character
+     * @return the folded character
+     */
+    public static char fold( char c ) {
+        if ( c < 0x80 ) {
+            return c >= 'A' && c <= 'Z' ? (char) ( c + ( 'a' - 'A' ) ) : c;
+        }
+        return Character.toLowerCase( Character.toUpperCase( c ) );
+    }
+
+    /**
+     * Folds a string. The string is returned unchanged, and no copy is 
+     * made, if it is already folded.
+     * @param text a string
+     * @return the folded string
+     */
+    public static String fold( String text ) {
+        int length = text.length();
+        for ( int i = 0; i < length; i++ ) {
+            char c = text.charAt( i );
+            if ( fold( c ) != c ) {
+                return fold( text, 0, length );
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Creates a folded copy of a range of a character sequence.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return the folded characters of the range
+     */
+    public static String fold( CharSequence text, int start, int end ) {
+        char[] folded = new char[end - start];
+        for ( int i = 0; i < folded.length; i++ ) {
+            folded[i] = fold( text.charAt( start + i ) );
+        }
+        return new String( folded );
+    }
+
+    /**
+     * Calculates a hash code for a range of a character sequence that is 
+     * the same for every sequence that folds to the same characters.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return a hash code
+     */
+    public static int hash( CharSequence text, int start, int end ) {
+        int h = 0;
+        for ( int i = start; i < end; i++ ) {
+            h = 31 * h + fold( text.charAt( i ) );
+        }
+        return h ^ ( h >>> 16 );
+    }
+
+    /**
+     * Compares an already folded key with a range of a character sequence,
+     * folding the characters of the range.
+     * @param folded a folded string
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the range folds to the key
+     */
+    public static boolean matches( String folded, CharSequence text, int start, int end ) {
+        int length = folded.length();
+        if ( length != end - start ) {
+            return false;
+        }
+        for ( int i = 0; i < length; i++ ) {
+            if ( folded.charAt( i ) != fold( text.charAt( start + i ) ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
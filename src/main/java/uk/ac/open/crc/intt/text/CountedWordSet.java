@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A case insensitive set of words, like {@link WordSet}, that counts how
+ * often each word is added and can be bounded by a number of entries and
+ * an estimate of the memory used by the entries.
+ *
+ * <p>
+ * When a bound is exceeded, entries are evicted by a clock that sweeps the
+ * table. An entry with a count of zero is evicted and the count of any
+ * other entry is halved as the clock passes, so words added often and
+ * words added recently survive longest. Optionally, all the counts are
+ * halved each time a number of words has been added, so that the counts
+ * reflect a decaying window of recent additions.
+ * </p>
+ *
+ * <p>
+ * The memory estimate for an entry is the size of a compact string of its
+ * characters plus the table slot, and is approximate.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread safe. Callers that modify a set after
+ * publication are responsible for synchronisation.
+ * </p>
+ */
+public final class CountedWordSet {
+    private static final int MINIMUM_CAPACITY = 16;
+
+    // approximate overhead of a string, its array and a table slot
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private String[] keys;
+    private int[] hashes;
+    private int[] counts;
+    private int mask;
+    private int size;
+
+    private long byteSize = 0;
+    private int hand = 0;
+    private long additions = 0;
+    private long evictions = 0;
+
+    private int maximumEntries = Integer.MAX_VALUE;
+    private long maximumBytes = Long.MAX_VALUE;
+    private int decayInterval = 0;
+
+    /**
+     * Creates an empty, unbounded set with room for the specified number of
+     * entries.
+     * @param expectedSize the number of entries expected
+     */
+    public CountedWordSet( int expectedSize ) {
+        allocate( tableSizeFor( expectedSize ) );
+    }
+
+    /**
+     * Bounds the set, evicting entries immediately if the set exceeds the
+     * new bounds. The table is shrunk to the size the maximum number of 
+     * entries needs, and a full set evicts entries rather than growing.
+     * @param maximumEntries the most entries the set may hold
+     * @param maximumBytes the most memory the entries may use
+     * @param decayInterval the number of additions after which all the
+     * counts are halved, or 0 for no decay
+     * @throws IllegalArgumentException if a bound is less than 1 or the
+     * interval is negative
+     */
+    public void setBounds( int maximumEntries, long maximumBytes, int decayInterval ) {
+        if ( maximumEntries < 1 || maximumBytes < 1 || decayInterval < 0 ) {
+            throw new IllegalArgumentException( "Invalid bounds for word set" );
+        }
+        this.maximumEntries = maximumEntries;
+        this.maximumBytes = maximumBytes;
+        this.decayInterval = decayInterval;
+        evictToBounds();
+        if ( maximumEntries < this.keys.length / 2 
+                && tableSizeFor( maximumEntries ) < this.keys.length ) {
+            resize( tableSizeFor( maximumEntries ) );
+        }
+    }
+
+    /**
+     * Removes the bounds from the set.
+     */
+    public void setUnbounded() {
+        this.maximumEntries = Integer.MAX_VALUE;
+        this.maximumBytes = Long.MAX_VALUE;
+        this.decayInterval = 0;
+    }
+
+    /**
+     * Adds a word to the set, or counts another addition of the word if it
+     * is already in the set.
+     * @param word a word
+     * @return {@code true} if the word was not already in the set
+     */
+    public boolean add( String word ) {
+        return insert( word, 0, word.length(), true, 1 );
+    }
+
+    /**
+     * Adds a word to the set with a count, or adds the count to the word's
+     * count if it is already in the set. Used to restore a set.
+     * @param word a word
+     * @param count the number of additions to record, at least 1
+     * @return {@code true} if the word was not already in the set
+     * @throws IllegalArgumentException if the count is less than 1
+     */
+    public boolean add( String word, int count ) {
+        if ( count < 1 ) {
+            throw new IllegalArgumentException( "Count must be at least 1: " + count );
+        }
+        return insert( word, 0, word.length(), true, count );
+    }
+
+    /**
+     * Adds the characters from {@code start} (inclusive) to {@code end}
+     * (exclusive) of the sequence to the set, or counts another addition
+     * if they are already in the set. A string is only created for the
+     * entry if it is not already in the set.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the range was not already in the set
+     */
+    public boolean add( CharSequence text, int start, int end ) {
+        return insert( text, start, end, false, 1 );
+    }
+
+    private boolean insert( 
+            CharSequence text, int start, int end, boolean isWholeString, int count ) {
+        decay();
+        int hash = CaseFolding.hash( text, start, end );
+        int slot = find( text, start, end, hash );
+        if ( slot >= 0 ) {
+            this.counts[slot] = (int) Math.min( Integer.MAX_VALUE, (long) this.counts[slot] + count );
+            return false;
+        }
+
+        // a full bounded set evicts an entry rather than growing
+        if ( ( this.size + 1 ) * 2 > this.keys.length && this.size < this.maximumEntries ) {
+            resize( this.keys.length * 2 );
+            slot = find( text, start, end, hash );
+        }
+
+        slot = -( slot + 1 );
+        this.keys[slot] = isWholeString
+                ? CaseFolding.fold( (String) text )
+                : CaseFolding.fold( text, start, end );
+        this.hashes[slot] = hash;
+        this.counts[slot] = count;
+        this.size++;
+        this.byteSize += cost( end - start );
+        evictToBounds();
+        return true;
+    }
+
+    /**
+     * Indicates whether the set contains the word, ignoring case.
+     * @param word a word to test
+     * @return {@code true} if the word is found in the set
+     */
+    public boolean contains( String word ) {
+        return contains( word, 0, word.length() );
+    }
+
+    /**
+     * Indicates whether the set contains the characters from {@code start}
+     * (inclusive) to {@code end} (exclusive) of the sequence, ignoring case.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the range is found in the set
+     */
+    public boolean contains( CharSequence text, int start, int end ) {
+        return find( text, start, end, CaseFolding.hash( text, start, end ) ) >= 0;
+    }
+
+    /**
+     * Recovers the count of a word, which is the number of times it has been
+     * added less any aging.
+     * @param word a word
+     * @return the count of the word, or 0 if it is not in the set
+     */
+    public int count( String word ) {
+        int slot = find( word, 0, word.length(), CaseFolding.hash( word, 0, word.length() ) );
+        return slot >= 0 ? this.counts[slot] : 0;
+    }
+
+    /**
+     * Recovers the number of entries in the set.
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Indicates whether the set is empty.
+     * @return {@code true} if the set contains no entries
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Reports the estimated memory used by the entries.
+     * @return an estimate of the memory used in bytes
+     */
+    public long byteSize() {
+        return this.byteSize;
+    }
+
+    /**
+     * Reports the number of entries evicted since the set was created.
+     * @return the number of evictions
+     */
+    public long evictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Passes each entry in the set, in lower case, to the action. The order
+     * of the entries is undefined.
+     * @param action an action to perform on each entry
+     */
+    public void forEach( Consumer<? super String> action ) {
+        for ( String key : this.keys ) {
+            if ( key != null ) {
+                action.accept( key );
+            }
+        }
+    }
+
+    /**
+     * Passes each entry in the set, in lower case, and its count to the 
+     * action. The order of the entries is undefined.
+     * @param action an action to perform on each entry and its count
+     */
+    public void forEachEntry( ObjIntConsumer<? super String> action ) {
+        for ( int i = 0; i < this.keys.length; i++ ) {
+            if ( this.keys[i] != null ) {
+                action.accept( this.keys[i], this.counts[i] );
+            }
+        }
+    }
+
+    private void decay() {
+        if ( this.decayInterval > 0 && ++this.additions % this.decayInterval == 0 ) {
+            for ( int i = 0; i < this.counts.length; i++ ) {
+                this.counts[i] >>>= 1;
+            }
+        }
+    }
+
+    private void evictToBounds() {
+        while ( this.size > this.maximumEntries
+                || ( this.size > 0 && this.byteSize > this.maximumBytes ) ) {
+            evictOne();
+        }
+    }
+
+    // the clock halves counts until it finds an entry with a count of zero
+    private void evictOne() {
+        while ( true ) {
+            int slot = this.hand;
+            if ( this.keys[slot] != null ) {
+                if ( this.counts[slot] == 0 ) {
+                    // the slot may be refilled by the shift, so the hand stays
+                    removeAt( slot );
+                    this.evictions++;
+                    return;
+                }
+                this.counts[slot] >>>= 1;
+            }
+            this.hand = ( slot + 1 ) & this.mask;
+        }
+    }
+
+    // removes an entry and shifts back any later entries in its probe
+    // sequence so that linear probing finds them
+    private void removeAt( int slot ) {
+        this.size--;
+        this.byteSize -= cost( this.keys[slot].length() );
+        int gap = slot;
+        int i = slot;
+        while ( true ) {
+            i = ( i + 1 ) & this.mask;
+            if ( this.keys[i] == null ) {
+                break;
+            }
+            int home = this.hashes[i] & this.mask;
+            if ( ( ( i - home ) & this.mask ) >= ( ( i - gap ) & this.mask ) ) {
+                this.keys[gap] = this.keys[i];
+                this.hashes[gap] = this.hashes[i];
+                this.counts[gap] = this.counts[i];
+                gap = i;
+            }
+        }
+        this.keys[gap] = null;
+        this.counts[gap] = 0;
+    }
+
+    // returns the slot of the entry if found, otherwise -(insertion slot + 1)
+    private int find( CharSequence text, int start, int end, int hash ) {
+        int slot = hash & this.mask;
+        String key;
+        while ( ( key = this.keys[slot] ) != null ) {
+            if ( this.hashes[slot] == hash && CaseFolding.matches( key, text, start, end ) ) {
+                return slot;
+            }
+            slot = ( slot + 1 ) & this.mask;
+        }
+        return -( slot + 1 );
+    }
+
+    private void resize( int capacity ) {
+        String[] oldKeys = this.keys;
+        int[] oldHashes = this.hashes;
+        int[] oldCounts = this.counts;
+        allocate( capacity );
+        for ( int i = 0; i < oldKeys.length; i++ ) {
+            if ( oldKeys[i] != null ) {
+                int slot = oldHashes[i] & this.mask;
+                while ( this.keys[slot] != null ) {
+                    slot = ( slot + 1 ) & this.mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.hashes[slot] = oldHashes[i];
+                this.counts[slot] = oldCounts[i];
+            }
+        }
+        this.hand = 0;
+    }
+
+    private void allocate( int capacity ) {
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static long cost( int length ) {
+        return ENTRY_OVERHEAD + 2L * length;
+    }
+
+    private static int tableSizeFor( int expectedSize ) {
+        int capacity = MINIMUM_CAPACITY;
+        while ( capacity < expectedSize * 2 ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * An immutable, case insensitive set of words stored in a minimal perfect
+ * hash table, for the small word lists that are fixed once loaded and are
+ * queried very often, such as the abbreviations and affixes.
+ *
+ * <p>
+ * The folded entries, as defined by {@link CaseFolding}, are packed into
+ * one character array. Each word is hashed to one of a number of buckets,
+ * and each bucket holds a seed, found when the set is built, that sends
+ * the words of the bucket to distinct slots of a table with exactly one
+ * slot per word. A lookup therefore hashes the query once, reads one seed
+ * and compares the query with one packed entry. No probing is needed and
+ * no objects are created.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ * </p>
+ */
+public final class StaticWordSet {
+    private static final int KEYS_PER_BUCKET = 4;
+    private static final int MAXIMUM_SEED = 1 << 20;
+    private static final int MAXIMUM_ATTEMPTS = 8;
+
+    private final char[] chars;
+    // offsets[slot] to offsets[slot + 1] is the entry in slot
+    private final int[] offsets;
+    private final int[] fingerprints;
+    private final int[] seeds;
+    private final long salt;
+    private final int maximumLength;
+
+    /**
+     * Creates a set containing the given words.
+     * @param words a collection of words
+     * @throws IllegalStateException in the unlikely event that no perfect
+     * hash function is found for the words
+     */
+    public StaticWordSet( Collection<String> words ) {
+        Set<String> folded = new LinkedHashSet<>();
+        words.forEach( word -> folded.add( CaseFolding.fold( word ) ) );
+        String[] keys = folded.toArray( new String[folded.size()] );
+        int size = keys.length;
+
+        int longest = 0;
+        for ( String key : keys ) {
+            longest = Math.max( longest, key.length() );
+        }
+        this.maximumLength = longest;
+
+        int bucketCount = Math.max( 1, ( size + KEYS_PER_BUCKET - 1 ) / KEYS_PER_BUCKET );
+        int[] slots = null;
+        int[] bucketSeeds = null;
+        long candidateSalt = 0;
+        for ( int attempt = 0; slots == null; attempt++ ) {
+            if ( attempt == MAXIMUM_ATTEMPTS ) {
+                throw new IllegalStateException( "No perfect hash found for word set" );
+            }
+            candidateSalt = attempt * 0x9e3779b97f4a7c15L;
+            bucketSeeds = new int[bucketCount];
+            slots = place( keys, candidateSalt, bucketSeeds );
+        }
+        this.salt = candidateSalt;
+        this.seeds = bucketSeeds;
+
+        // pack the entries in slot order
+        String[] table = new String[size];
+        for ( int i = 0; i < size; i++ ) {
+            table[slots[i]] = keys[i];
+        }
+        this.offsets = new int[size + 1];
+        this.fingerprints = new int[size];
+        StringBuilder packed = new StringBuilder();
+        for ( int slot = 0; slot < size; slot++ ) {
+            this.offsets[slot] = packed.length();
+            this.fingerprints[slot] = (int) hash( table[slot], 0, table[slot].length(), this.salt );
+            packed.append( table[slot] );
+        }
+        this.offsets[size] = packed.length();
+        this.chars = packed.toString().toCharArray();
+    }
+
+    // assigns a seed to each bucket, largest buckets first, and returns
+    // the slot of each key, or null if some bucket cannot be placed
+    private static int[] place( String[] keys, long salt, int[] seeds ) {
+        int size = keys.length;
+        int bucketCount = seeds.length;
+        long[] hashes = new long[size];
+        List<List<Integer>> buckets = new ArrayList<>( bucketCount );
+        for ( int b = 0; b < bucketCount; b++ ) {
+            buckets.add( new ArrayList<>() );
+        }
+        for ( int i = 0; i < size; i++ ) {
+            hashes[i] = hash( keys[i], 0, keys[i].length(), salt );
+            buckets.get( bucket( hashes[i], bucketCount ) ).add( i );
+        }
+        Integer[] order = new Integer[bucketCount];
+        for ( int b = 0; b < bucketCount; b++ ) {
+            order[b] = b;
+        }
+        Arrays.sort( order, ( a, b ) -> buckets.get( b ).size() - buckets.get( a ).size() );
+
+        int[] slots = new int[size];
+        boolean[] taken = new boolean[size];
+        for ( int b : order ) {
+            List<Integer> members = buckets.get( b );
+            if ( members.isEmpty() ) {
+                break;
+            }
+            int seed = 0;
+            while ( ! fits( members, hashes, seed, taken, slots ) ) {
+                if ( ++seed == MAXIMUM_SEED ) {
+                    return null;
+                }
+            }
+            seeds[b] = seed;
+            for ( int i : members ) {
+                taken[slots[i]] = true;
+            }
+        }
+        return slots;
+    }
+
+    // tests whether the seed sends the keys of a bucket to distinct free
+    // slots, recording the slots
+    private static boolean fits(
+            List<Integer> members, long[] hashes, int seed, boolean[] taken, int[] slots ) {
+        for ( int m = 0; m < members.size(); m++ ) {
+            int i = members.get( m );
+            int slot = slot( hashes[i], seed, taken.length );
+            if ( taken[slot] ) {
+                return false;
+            }
+            for ( int n = 0; n < m; n++ ) {
+                if ( slots[members.get( n )] == slot ) {
+                    return false;
+                }
+            }
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether the set contains the word, ignoring case.
+     * @param word a word to test
+     * @return {@code true} if the word is found in the set
+     */
+    public boolean contains( String word ) {
+        return contains( word, 0, word.length() );
+    }
+
+    /**
+     * Indicates whether the set contains the characters from {@code start}
+     * (inclusive) to {@code end} (exclusive) of the sequence, ignoring case.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the range is found in the set
+     */
+    public boolean contains( CharSequence text, int start, int end ) {
+        int length = end - start;
+        if ( length > this.maximumLength || this.fingerprints.length == 0 ) {
+            return false;
+        }
+        long h = hash( text, start, end, this.salt );
+        int slot = slot( h, this.seeds[bucket( h, this.seeds.length )], this.fingerprints.length );
+        if ( this.fingerprints[slot] != (int) h ) {
+            return false;
+        }
+        int offset = this.offsets[slot];
+        if ( this.offsets[slot + 1] - offset != length ) {
+            return false;
+        }
+        for ( int i = 0; i < length; i++ ) {
+            if ( this.chars[offset + i] != CaseFolding.fold( text.charAt( start + i ) ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recovers the number of entries in the set.
+     * @return the number of entries
+     */
+    public int size() {
+        return this.fingerprints.length;
+    }
+
+    /**
+     * Indicates whether the set is empty.
+     * @return {@code true} if the set contains no entries
+     */
+    public boolean isEmpty() {
+        return this.fingerprints.length == 0;
+    }
+
+    /**
+     * Reports the length of the longest entry.
+     * @return the length of the longest entry, or 0 if the set is empty
+     */
+    public int maximumLength() {
+        return this.maximumLength;
+    }
+
+    /**
+     * Passes each entry in the set, in lower case, to the action. The order
+     * of the entries is undefined. A string is created for each entry.
+     * @param action an action to perform on each entry
+     */
+    public void forEach( Consumer<? super String> action ) {
+        for ( int slot = 0; slot < this.fingerprints.length; slot++ ) {
+            action.accept( new String( this.chars, this.offsets[slot],
+                    this.offsets[slot + 1] - this.offsets[slot] ) );
+        }
+    }
+
+    // the bucket is chosen from the high half of the hash and the slot from
+    // the low half remixed with the bucket's seed
+    private static int bucket( long hash, int bucketCount ) {
+        return (int) ( ( ( hash >>> 32 ) * bucketCount ) >>> 32 );
+    }
+
+    private static int slot( long hash, int seed, int size ) {
+        int h = (int) hash ^ ( seed * 0x9e3779b9 );
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int) ( ( ( h & 0xffffffffL ) * size ) >>> 32 );
+    }
+
+    private static long hash( CharSequence text, int start, int end, long salt ) {
+        long h = 0xcbf29ce484222325L ^ salt;
+        for ( int i = start; i < end; i++ ) {
+            h = ( h ^ CaseFolding.fold( text.charAt( i ) ) ) * 0x100000001b3L;
+        }
+        // finaliser from MurmurHash3
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
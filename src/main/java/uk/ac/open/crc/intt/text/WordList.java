@@ -15,9 +15,9 @@
  */
 package uk.ac.open.crc.intt.text;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Represents a set of words.  
@@ -25,20 +25,51 @@ import java.util.Set;
  */
 public class WordList {
     private final String tag;
-    private final Set<String> words;
+    private final WordSet words;
     
     public WordList( String tag, List<String> words ) {
         this.tag = tag;
-        this.words = new HashSet<>(words);
+        this.words = new WordSet( words );
     }
     
     public WordList( String tag, Set<String> words ) {
+        this.tag = tag;
+        this.words = new WordSet( words );
+    }
+    
+    /**
+     * Creates a word list from an existing set, which is not copied.
+     * @param tag a tag identifying the list
+     * @param words a set of words
+     */
+    public WordList( String tag, WordSet words ) {
         this.tag = tag;
         this.words = words;
     }
     
     public boolean isWord( String word ) {
-        return this.words.contains( word.toLowerCase() );
+        return this.words.contains( word );
+    }
+    
+    /**
+     * Indicates whether the characters from {@code start} (inclusive) to 
+     * {@code end} (exclusive) of the sequence are a word in the list, 
+     * ignoring case.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the range is a word in the list
+     */
+    public boolean isWord( CharSequence text, int start, int end ) {
+        return this.words.contains( text, start, end );
+    }
+    
+    /**
+     * Passes each word in the list, in lower case, to the action.
+     * @param action an action to perform on each word
+     */
+    public void forEach( Consumer<? super String> action ) {
+        this.words.forEach( action );
     }
     
     public String tag() {
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads large word lists from files. Files contain one word per line,
+ * encoded as UTF-8, and may contain comments that begin with a # in the
+ * same way as files read by {@link WordListReader}. Files may be
+ * compressed with gzip, which is detected from the content of the file.
+ *
+ * <p>
+ * Plain files are memory mapped and gzip files are inflated into a single
+ * buffer. The buffer is divided into chunks at line boundaries and the
+ * chunks are decoded, folded to lower case and deduplicated in parallel
+ * before being merged into the {@link WordSet} used by the
+ * {@link WordList}. No intermediate list of lines is created.
+ * </p>
+ *
+ */
+public final class WordListLoader {
+    // chunks smaller than this are not worth parsing in parallel
+    private static final int MINIMUM_CHUNK_SIZE = 1 << 20;
+
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    // the size of the header and trailer of a gzip member
+    private static final int GZIP_MINIMUM_SIZE = 18;
+
+    private static final int MAXIMUM_DEFLATE_RATIO = 1032;
+
+    private WordListLoader() {
+        // static methods only
+    }
+
+    /**
+     * Loads each file as a separate word list. The files are loaded in turn
+     * and each file is parsed in parallel.
+     * @param paths the paths of the files
+     * @return a list of word lists in the same order as the paths
+     * @throws IOException if any of the files cannot be read or is not
+     * valid UTF-8
+     */
+    public static List<WordList> load( List<Path> paths ) throws IOException {
+        List<WordList> wordLists = new ArrayList<>( paths.size() );
+        for ( Path path : paths ) {
+            wordLists.add( load( path ) );
+        }
+        return wordLists;
+    }
+
+    /**
+     * Loads a file as a word list tagged with the name of the file without
+     * its extensions, e.g. "domain" for "domain.txt.gz".
+     * @param path the path of the file
+     * @return a word list
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     */
+    public static WordList load( Path path ) throws IOException {
+        return load( path, tagFor( path ) );
+    }
+
+    /**
+     * Loads a file as a word list with the given tag.
+     * @param path the path of the file
+     * @param tag the tag for the word list
+     * @return a word list
+     * @throws IOException if the file cannot be read or is not valid UTF-8
+     */
+    public static WordList load( Path path, String tag ) throws IOException {
+        ByteBuffer content = read( path );
+        int[] boundaries = chunkBoundaries( content );
+
+        List<WordSet> chunks;
+        try {
+            chunks = IntStream.range( 0, boundaries.length - 1 )
+                    .parallel()
+                    .mapToObj( i -> parse( content, boundaries[i], boundaries[i + 1] ) )
+                    .collect( Collectors.toList() );
+        }
+        catch ( UncheckedIOException e ) {
+            throw new IOException( "Unable to read word list " + path, e.getCause() );
+        }
+
+        if ( chunks.size() == 1 ) {
+            return new WordList( tag, chunks.get( 0 ) );
+        }
+
+        int size = 0;
+        for ( WordSet chunk : chunks ) {
+            size += chunk.size();
+        }
+        WordSet words = new WordSet( size );
+        for ( WordSet chunk : chunks ) {
+            // the words are already folded, so the instances are reused
+            chunk.forEach( words::add );
+        }
+        return new WordList( tag, words );
+    }
+
+    private static ByteBuffer read( Path path ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            long size = channel.size();
+            if ( size > Integer.MAX_VALUE ) {
+                throw new IOException( "Word list too large: " + path );
+            }
+            ByteBuffer content = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            if ( size >= 2
+                    && ( content.get( 0 ) & 0xff ) == 0x1f
+                    && ( content.get( 1 ) & 0xff ) == 0x8b ) {
+                return inflate( channel, content );
+            }
+            return content;
+        }
+    }
+
+    private static ByteBuffer inflate( FileChannel channel, ByteBuffer content ) 
+            throws IOException {
+        channel.position( 0 );
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream( inflatedSize( content ) );
+        // closing the stream releases the inflater's native memory
+        try ( InputStream in = new GZIPInputStream( 
+                Channels.newInputStream( channel ), GZIP_BUFFER_SIZE ) ) {
+            byte[] buffer = new byte[GZIP_BUFFER_SIZE];
+            int count;
+            while ( ( count = in.read( buffer ) ) > 0 ) {
+                inflated.write( buffer, 0, count );
+            }
+        }
+        return ByteBuffer.wrap( inflated.toByteArray() );
+    }
+
+    // estimates the size of the inflated content from the gzip trailer, 
+    // which records the size of the last member modulo 2^32. The estimate
+    // is only used to size the buffer, which grows if it is too small, and 
+    // is limited by the greatest ratio deflate can achieve in case the 
+    // trailer is wrong
+    private static int inflatedSize( ByteBuffer content ) {
+        int size = content.limit();
+        if ( size < GZIP_MINIMUM_SIZE ) {
+            return GZIP_BUFFER_SIZE;
+        }
+        long recorded = Integer.toUnsignedLong( content.duplicate().order( ByteOrder.LITTLE_ENDIAN )
+                .getInt( size - Integer.BYTES ) );
+        long limit = Math.min( (long) size * MAXIMUM_DEFLATE_RATIO, Integer.MAX_VALUE - 8 );
+        return (int) Math.max( GZIP_BUFFER_SIZE, Math.min( recorded, limit ) );
+    }
+
+    // divides the content into chunks that start at the beginning of a line.
+    // A newline byte never occurs within a multibyte UTF-8 sequence, so
+    // each chunk can be decoded separately
+    private static int[] chunkBoundaries( ByteBuffer content ) {
+        int size = content.limit();
+        int chunkCount = Math.max( 1, Math.min(
+                Runtime.getRuntime().availableProcessors(),
+                size / MINIMUM_CHUNK_SIZE ) );
+
+        int[] boundaries = new int[chunkCount + 1];
+        boundaries[chunkCount] = size;
+        for ( int i = 1; i < chunkCount; i++ ) {
+            int boundary = Math.max( boundaries[i - 1], (int) ( (long) size * i / chunkCount ) );
+            while ( boundary < size && content.get( boundary ) != '\n' ) {
+                boundary++;
+            }
+            boundaries[i] = Math.min( size, boundary + 1 );
+        }
+        return boundaries;
+    }
+
+    private static WordSet parse( ByteBuffer content, int start, int end ) {
+        ByteBuffer chunk = content.duplicate();
+        chunk.position( start );
+        chunk.limit( end );
+
+        CharBuffer text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput( CodingErrorAction.REPORT )
+                    .onUnmappableCharacter( CodingErrorAction.REPORT )
+                    .decode( chunk );
+        }
+        catch ( CharacterCodingException e ) {
+            throw new UncheckedIOException( e );
+        }
+
+        WordSet words = new WordSet( text.length() / 8 );
+        WordListReader.parse( text, words::add );
+        return words;
+    }
+
+    private static String tagFor( Path path ) {
+        String name = path.getFileName().toString();
+        int index = name.indexOf( '.' );
+        return index > 0 ? name.substring( 0, index ) : name;
+    }
+}
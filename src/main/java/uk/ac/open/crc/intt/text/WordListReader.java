@@ -17,12 +17,15 @@
 
 package uk.ac.open.crc.intt.text;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,14 +35,23 @@ import org.slf4j.LoggerFactory;
  * the class is intended to read lists of words with one word per line. 
  * Comments are permitted to allow annotation of files.
  * 
+ * <p>
+ * Files are parsed in a single pass over their text. The static methods
+ * {@link #forEachWord(String, Consumer)} and {@link #readWordSet(String)} 
+ * stream the terms to their destination without retaining a list of the 
+ * file's contents.
+ * </p>
+ * 
  */
 public class WordListReader {
     private static final Logger LOGGER = 
             LoggerFactory.getLogger( WordListReader.class );
     
+    private static final int BUFFER_SIZE = 8192;
+    
     private final String fileName;
     
-    private final List<Line> list;
+    private final List<String> list;
     
     /** 
      * Reads the specified file. 
@@ -49,7 +61,33 @@ public class WordListReader {
     public WordListReader( String fileName ) {
         this.fileName = fileName;
         this.list = new ArrayList<>();
-        read();
+        forEachWord( fileName, this.list::add );
+    }
+    
+    /**
+     * Passes each non-comment term found in the word list file to the
+     * consumer in the order found, without retaining the file or creating 
+     * a list of its contents.
+     * @param fileName the name of a file within the jar file to read.
+     * @param action the consumer of the terms
+     */
+    public static void forEachWord( String fileName, Consumer<? super String> action ) {
+        CharSequence text = read( fileName );
+        parse( text, ( source, start, end ) -> 
+                action.accept( source.subSequence( start, end ).toString() ) );
+    }
+    
+    /**
+     * Reads the non-comment terms found in the word list file 
+     * straight into a set of words, which is case insensitive.
+     * @param fileName the name of a file within the jar file to read.
+     * @return a set of the words found in the file
+     */
+    public static WordSet readWordSet( String fileName ) {
+        CharSequence text = read( fileName );
+        WordSet words = new WordSet( text.length() / 8 );
+        parse( text, words::add );
+        return words;
     }
     
     /**
@@ -57,15 +95,7 @@ public class WordListReader {
      * @return a {@code List} of words
      */
     public List<String> asList() {
-        ArrayList<String> payloadList = new ArrayList<>( this.list.size() );
-        
-        this.list.stream().forEach( line -> { 
-            if ( line.hasPayload() ) {
-                payloadList.add( line.payload() );
-            }
-        } );
-        
-        return payloadList;
+        return new ArrayList<>( this.list );
     }
     
     
@@ -75,15 +105,7 @@ public class WordListReader {
      * @return a {@code List} of lower case words
      */
     public List<String> asLowerCaseList() {
-        ArrayList<String> payloadList = new ArrayList<>( this.list.size() );
-        
-        this.list.stream().forEach( line -> { 
-            if ( line.hasPayload() ) {
-                payloadList.add( line.payload().toLowerCase() );
-            }
-        } );
-        
-        return payloadList;
+        return asLowerCaseList( 0 );
     }
     
     
@@ -109,98 +131,93 @@ public class WordListReader {
     public List<String> asLowerCaseList( int minimumWordLength ) {
         ArrayList<String> payloadList = new ArrayList<>( this.list.size() );
         
-        this.list.stream().forEach( line -> { 
-            if ( line.hasPayload() && line.payload().length() >= minimumWordLength ) {
-                payloadList.add( line.payload().toLowerCase() );
+        for ( String payload : this.list ) {
+            if ( payload.length() >= minimumWordLength ) {
+                payloadList.add( CaseFolding.fold( payload ) );
             }
-        } );
+        }
         
         return payloadList;
     }
     
     
-    private void read() {
-        InputStream inStream = this.getClass().getResourceAsStream( 
-		"/wordlists/" + this.fileName );
-        try ( BufferedReader in = new BufferedReader(new InputStreamReader(inStream))) {
-            String line;
-            
-            while ( ( line = in.readLine() ) != null ) {
-                this.list.add( new Line( line.trim() ) );
-            }
-        }
-        catch ( IOException e ) {
-            LOGGER.error( "Encountered problem reading from \"{}\"\n" 
-                    + e.getMessage(), 
-                    this.fileName );
-        }
+    /**
+     * Receives the range of each term found by {@link #parse}.
+     */
+    @FunctionalInterface
+    interface Entry {
+        void accept( CharSequence text, int start, int end );
     }
     
     /**
-     * Represents a line in a file.
+     * Finds the terms in the text of a word list in a single pass. Lines
+     * that begin with a #, blank lines, and any text following a # are 
+     * ignored, and terms are trimmed in the same way as 
+     * {@link String#trim()}. A leading byte order mark is skipped.
+     * @param text the text of a word list
+     * @param entry receives the range of each term
      */
-    private class Line {
-        private final String content;
-        private final String comment;
-        private final String payload;
-        
-        private final boolean isComment;
-        private final boolean containsComment;
-        private final boolean isBlank;
-        private final boolean hasPayload;
-        
-        Line( String rawLine ) {
-            this.content = rawLine;
-            if ( rawLine.startsWith( "#" ) ) {
-                this.comment = rawLine.trim();
-                this.payload = "";
+    static void parse( CharSequence text, Entry entry ) {
+        int length = text.length();
+        int lineStart = 0;
+        if ( length > 0 && text.charAt( 0 ) == '\uFEFF' ) {
+            lineStart = 1;
+        }
+        while ( lineStart < length ) {
+            int lineEnd = lineStart;
+            int payloadEnd = -1;
+            char c;
+            while ( lineEnd < length 
+                    && ( c = text.charAt( lineEnd ) ) != '\n' && c != '\r' ) {
+                if ( payloadEnd < 0 && c == '#' ) {
+                    payloadEnd = lineEnd;
+                }
+                lineEnd++;
             }
-            else if ( rawLine.contains( "#" ) ) {
-                int index = rawLine.indexOf( "#" );
-                this.payload = rawLine.substring( 0, index ).trim();
-                this.comment = rawLine.substring( index ).trim();
+            if ( payloadEnd < 0 ) {
+                payloadEnd = lineEnd;
             }
-            else {
-                this.comment = "";
-                this.payload = rawLine.trim();
+            
+            int start = lineStart;
+            int end = payloadEnd;
+            while ( start < end && text.charAt( start ) <= ' ' ) {
+                start++;
+            }
+            while ( end > start && text.charAt( end - 1 ) <= ' ' ) {
+                end--;
+            }
+            if ( start < end ) {
+                entry.accept( text, start, end );
             }
             
-            this.isComment = this.comment.equals( this.content );
-            this.containsComment = ! this.comment.isEmpty();
-            this.isBlank = this.content.isEmpty();
-            this.hasPayload = ! this.payload.isEmpty();
-        }
-        
-        String content() {
-            return this.content;
-        }
-        
-        String comment() {
-            return this.comment;
+            lineStart = lineEnd + 1;
         }
-        
-        String payload() {
-            return this.payload;
-        }
-        
-        boolean hasPayload() {
-            return this.hasPayload;
-        }
-        
-        boolean isBlank() {
-            return this.isBlank;
-        }
-        
-        boolean isComment() {
-            return this.isComment;
+    }
+    
+    private static CharSequence read( String fileName ) {
+        InputStream inStream = WordListReader.class.getResourceAsStream( 
+		"/wordlists/" + fileName );
+        if ( inStream == null ) {
+            LOGGER.error( "Unable to find \"{}\"", fileName );
+            return "";
         }
         
-        boolean containsComment() {
-            return this.containsComment;
+        char[] buffer = new char[BUFFER_SIZE];
+        int length = 0;
+        try ( Reader in = new InputStreamReader( inStream ) ) {
+            int count;
+            while ( ( count = in.read( buffer, length, buffer.length - length ) ) >= 0 ) {
+                length += count;
+                if ( length == buffer.length ) {
+                    buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+                }
+            }
         }
-        
-        String originalText() {
-            return this.content;
+        catch ( IOException e ) {
+            LOGGER.error( "Encountered problem reading from \"{}\"\n" 
+                    + e.getMessage(), 
+                    fileName );
         }
+        return CharBuffer.wrap( buffer, 0, length );
     }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * A case insensitive set of words that can be queried with a range of
+ * characters from any {@code CharSequence}. Entries are stored folded, as
+ * defined by {@link CaseFolding}, in an open addressing table, so that a
+ * lookup hashes and compares the caller's characters directly and neither
+ * a substring nor a lower case copy of the query is created.
+ *
+ * <p>
+ * Instances are not thread safe. Callers that modify a set after
+ * publication are responsible for synchronisation.
+ * </p>
+ */
+public final class WordSet {
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private String[] keys;
+    private int[] hashes;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    public WordSet() {
+        this( MINIMUM_CAPACITY );
+    }
+
+    /**
+     * Creates an empty set with room for the specified number of entries.
+     * @param expectedSize the number of entries expected
+     */
+    public WordSet( int expectedSize ) {
+        allocate( tableSizeFor( expectedSize ) );
+    }
+
+    /**
+     * Creates a set containing the given words.
+     * @param words a collection of words
+     */
+    public WordSet( Collection<String> words ) {
+        this( words.size() );
+        words.forEach( word -> add( word ) );
+    }
+
+    /**
+     * Adds a word to the set. The word is stored folded to lower case.
+     * @param word a word
+     * @return {@code true} if the word was not already in the set
+     */
+    public boolean add( String word ) {
+        return insert( word, 0, word.length(), true );
+    }
+
+    /**
+     * Adds the characters from {@code start} (inclusive) to {@code end} 
+     * (exclusive) of the sequence to the set. A string is only created 
+     * for the entry if it is not already in the set.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the word was not already in the set
+     */
+    public boolean add( CharSequence text, int start, int end ) {
+        return insert( text, start, end, false );
+    }
+
+    // where the whole of a string is added, the string is stored if it is 
+    // already folded
+    private boolean insert( CharSequence text, int start, int end, boolean isWholeString ) {
+        int hash = CaseFolding.hash( text, start, end );
+        int slot = find( text, start, end, hash );
+        if ( slot >= 0 ) {
+            return false;
+        }
+
+        if ( ( this.size + 1 ) * 2 > this.keys.length ) {
+            resize( this.keys.length * 2 );
+            slot = find( text, start, end, hash );
+        }
+
+        slot = -( slot + 1 );
+        this.keys[slot] = isWholeString 
+                ? CaseFolding.fold( (String) text ) 
+                : CaseFolding.fold( text, start, end );
+        this.hashes[slot] = hash;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Indicates whether the set contains the word, ignoring case.
+     * @param word a word to test
+     * @return {@code true} if the word is found in the set
+     */
+    public boolean contains( String word ) {
+        return contains( word, 0, word.length() );
+    }
+
+    /**
+     * Indicates whether the set contains the characters from {@code start}
+     * (inclusive) to {@code end} (exclusive) of the sequence, ignoring case.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code true} if the range is found in the set
+     */
+    public boolean contains( CharSequence text, int start, int end ) {
+        return find( text, start, end, CaseFolding.hash( text, start, end ) ) >= 0;
+    }
+
+    /**
+     * Recovers the number of entries in the set.
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Indicates whether the set is empty.
+     * @return {@code true} if the set contains no entries
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Passes each entry in the set, in lower case, to the action. The order
+     * of the entries is undefined.
+     * @param action an action to perform on each entry
+     */
+    public void forEach( Consumer<? super String> action ) {
+        for ( String key : this.keys ) {
+            if ( key != null ) {
+                action.accept( key );
+            }
+        }
+    }
+
+    // returns the slot of the entry if found, otherwise -(insertion slot + 1)
+    private int find( CharSequence text, int start, int end, int hash ) {
+        int slot = hash & this.mask;
+        String key;
+        while ( ( key = this.keys[slot] ) != null ) {
+            if ( this.hashes[slot] == hash && CaseFolding.matches( key, text, start, end ) ) {
+                return slot;
+            }
+            slot = ( slot + 1 ) & this.mask;
+        }
+        return -( slot + 1 );
+    }
+
+    private void resize( int capacity ) {
+        String[] oldKeys = this.keys;
+        int[] oldHashes = this.hashes;
+        allocate( capacity );
+        for ( int i = 0; i < oldKeys.length; i++ ) {
+            if ( oldKeys[i] != null ) {
+                int slot = oldHashes[i] & this.mask;
+                while ( this.keys[slot] != null ) {
+                    slot = ( slot + 1 ) & this.mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private void allocate( int capacity ) {
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int tableSizeFor( int expectedSize ) {
+        int capacity = MINIMUM_CAPACITY;
+        while ( capacity < expectedSize * 2 ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 Simon Butler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.open.crc.intt.text;
+
+import java.util.Arrays;
+
+/**
+ * Summarises the shape of the words in a collection: the length of the
+ * longest word, which lengths occur, and which pairs of characters begin
+ * and end words. The statistics are used to reject ranges of characters
+ * that cannot be words before they are hashed and looked up.
+ *
+ * <p>
+ * Characters are folded, as defined by {@link CaseFolding}, before they
+ * are recorded. Pairs of characters are recorded in bitmaps indexed by
+ * the low byte of each character, so pairs of non-ASCII characters may
+ * share an entry; the statistics can report that a range may be a word
+ * when it is not, but never the reverse.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread safe. Callers that add words after publication
+ * are responsible for synchronisation.
+ * </p>
+ */
+public final class WordStatistics {
+    private static final int PAIR_BITS = 1 << 16;
+
+    private final long[] startPairs = new long[PAIR_BITS / Long.SIZE];
+    private final long[] endPairs = new long[PAIR_BITS / Long.SIZE];
+    private long[] lengths = new long[1];
+    private int maximumLength = 0;
+
+    /**
+     * Records a word.
+     * @param word a word
+     */
+    public void add( String word ) {
+        add( word, 0, word.length() );
+    }
+
+    /**
+     * Records the characters from {@code start} (inclusive) to {@code end}
+     * (exclusive) of the sequence as a word.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     */
+    public void add( CharSequence text, int start, int end ) {
+        int length = end - start;
+        if ( length > this.maximumLength ) {
+            this.maximumLength = length;
+        }
+        if ( ( length >>> 6 ) >= this.lengths.length ) {
+            this.lengths = Arrays.copyOf( this.lengths, ( length >>> 6 ) + 1 );
+        }
+        this.lengths[length >>> 6] |= 1L << length;
+
+        if ( length > 1 ) {
+            set( this.startPairs, pair( text.charAt( start ), text.charAt( start + 1 ) ) );
+            set( this.endPairs, pair( text.charAt( end - 2 ), text.charAt( end - 1 ) ) );
+        }
+    }
+
+    /**
+     * Tests whether a range of characters could be one of the words
+     * recorded, from its length and its first and last pairs of characters.
+     * @param text a character sequence
+     * @param start the index of the first character
+     * @param end the index following the last character
+     * @return {@code false} if the range is definitely not a recorded word
+     */
+    public boolean mightContain( CharSequence text, int start, int end ) {
+        int length = end - start;
+        if ( ! hasLength( length ) ) {
+            return false;
+        }
+        return length < 2
+                || ( isSet( this.startPairs, pair( text.charAt( start ), text.charAt( start + 1 ) ) )
+                    && isSet( this.endPairs, pair( text.charAt( end - 2 ), text.charAt( end - 1 ) ) ) );
+    }
+
+    /**
+     * Reports the length of the longest word recorded.
+     * @return the length of the longest word, or 0 if none are recorded
+     */
+    public int maximumLength() {
+        return this.maximumLength;
+    }
+
+    /**
+     * Tests whether any word of the given length is recorded.
+     * @param length a number of characters
+     * @return {@code true} if a word of that length is recorded
+     */
+    public boolean hasLength( int length ) {
+        return length >= 0
+                && length <= this.maximumLength
+                && ( this.lengths[length >>> 6] & ( 1L << length ) ) != 0;
+    }
+
+    /**
+     * Tests whether any word recorded may begin with the pair of characters.
+     * @param first the first character
+     * @param second the second character
+     * @return {@code false} if no recorded word begins with the pair
+     */
+    public boolean mightStartWith( char first, char second ) {
+        return isSet( this.startPairs, pair( first, second ) );
+    }
+
+    /**
+     * Tests whether any word recorded may end with the pair of characters.
+     * @param penultimate the penultimate character
+     * @param last the last character
+     * @return {@code false} if no recorded word ends with the pair
+     */
+    public boolean mightEndWith( char penultimate, char last ) {
+        return isSet( this.endPairs, pair( penultimate, last ) );
+    }
+
+    private static int pair( char first, char second ) {
+        return ( ( CaseFolding.fold( first ) & 0xff ) << 8 )
+                | ( CaseFolding.fold( second ) & 0xff );
+    }
+
+    private static void set( long[] bitmap, int index ) {
+        bitmap[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean isSet( long[] bitmap, int index ) {
+        return ( bitmap[index >>> 6] & ( 1L << index ) ) != 0;
+    }
+}
@@ -300,4 +300,14 @@ public class BasicTokeniserTest {
                 contains("mega", "Redo", "buff", "Sync"));
     }
     
+    @Test
+    public void tokenNotInRange() {
+        assertThat("Token missing from range not reported",
+		BasicTokeniser.indexOf( "getValue", "vlue", 3, 8 ),
+		is(-1));
+        assertThat("Token in range not found",
+		BasicTokeniser.indexOf( "getValue", "Value", 0, 8 ),
+		is(3));
+    }
+    
 }
@@ -16,7 +16,15 @@
 
 package uk.ac.open.crc.intt;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -84,4 +92,191 @@ public class IdentifierNameTokeniserTest {
 		tokens, 
 		hasSize(2));
     }
+    
+    @Test
+    public void modalExpansionTest() {
+        IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+        factory.seModalExpansionOn();
+	List<String> tokens = factory.create().tokenise( "CANTStop" );
+	assertThat("Negated modal not expanded", 
+		tokens, 
+		contains( "can", "not", "Stop" ));
+    }
+    
+    @Test
+    public void backgroundLoadingTest() {
+        IdentifierNameTokeniserFactory factory = 
+                IdentifierNameTokeniserFactory.loadInBackground();
+        factory.setRecursiveSplitOn();
+        IdentifierNameTokeniser tokeniser = factory.createWithoutWaiting();
+	assertThat("Naive tokenisation unavailable before loading", 
+		tokeniser.naiveTokenisation( "thenewestOne" ), 
+		contains( "thenewest", "One" ));
+        
+        factory.dictionariesLoaded().join();
+	assertThat("Tokeniser not upgraded after loading", 
+		tokeniser.isReady(), 
+		is( true ));
+	assertThat("Single case word not split after loading", 
+		tokeniser.tokenise( "thenewestOne" ), 
+		not( hasItem( "thenewest" ) ));
+    }
+    
+    @Test
+    public void lazyLoadingTest() {
+        IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+        factory.setAbbreviationsSource( Arrays.asList( "qzx" ) );
+	assertThat("Dictionaries not reported as unloaded", 
+		factory.toString(), 
+		containsString( "not loaded" ));
+	assertThat("Dictionaries loaded before create()", 
+		factory.dictionariesLoaded().isDone(), 
+		is( false ));
+        
+        IdentifierNameTokeniser tokeniser = factory.create();
+	assertThat("Dictionaries not loaded by create()", 
+		factory.dictionariesLoaded().isDone(), 
+		is( true ));
+	assertThat("Replacement abbreviations not used", 
+		tokeniser.tokeniseToSpans( "qzxValue" ).isKnown( 0 ), 
+		is( true ));
+    }
+    
+    @Test
+    public void batchOrderIndependenceTest() {
+	List<String> names = Arrays.asList( 
+		"somethingSimple", "thenewestone", "newest_value", 
+		"getValueCount", "valuecount", "somethingnew" );
+	List<String> reversed = new ArrayList<>( names );
+	Collections.reverse( reversed );
+        
+	List<List<String>> forwards = 
+		new IdentifierNameTokeniserFactory().create().tokeniseAll( names );
+	ForkJoinPool pool = new ForkJoinPool( 2 );
+	List<List<String>> backwards = 
+		new IdentifierNameTokeniserFactory().create().tokeniseAll( reversed, pool );
+	pool.shutdown();
+	Collections.reverse( backwards );
+        
+	assertThat("Batch result depends on the order of the names", 
+		backwards, 
+		is( forwards ));
+	assertThat("Conventional tokenisation differs in batch mode", 
+		forwards.get( 0 ), 
+		contains( "something", "Simple" ));
+    }
+    
+    @Test
+    public void batchSchedulingTest() {
+	assertThat("Single case name not costed above camel case name", 
+		BatchScheduler.estimateCost( "thenewestvaluecount" ), 
+		is( greaterThan( BatchScheduler.estimateCost( "theNewestValueCount" ) ) ));
+	assertThat("Acronym not separated from following word", 
+		BatchScheduler.estimateCost( "HTMLEditor" ), 
+		is( BatchScheduler.estimateCost( "HtmlEditor" ) ));
+        
+	long[] costs = new long[1000];
+	for ( int i = 0; i < costs.length; i++ ) {
+	    costs[i] = i % 7 == 0 ? 10000 : 1;
+	}
+	AtomicIntegerArray visits = new AtomicIntegerArray( costs.length );
+	BatchScheduler.schedule( ForkJoinPool.commonPool(), costs, 
+		Object::new, ( worker, i ) -> visits.incrementAndGet( i ) );
+	for ( int i = 0; i < costs.length; i++ ) {
+	    assertThat("Name not scheduled exactly once", visits.get( i ), is( 1 ));
+	}
+    }
+    
+    @Test
+    public void dictionaryReloadTest() {
+        IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+        IdentifierNameTokeniser tokeniser = factory.create();
+	assertThat("Unknown abbreviation recognised", 
+		tokeniser.tokeniseToSpans( "qzxValue" ).isKnown( 0 ), 
+		is( false ));
+        
+        factory.setAbbreviationsSource( Arrays.asList( "qzx" ) );
+	assertThat("Existing tokeniser did not see the replacement abbreviations", 
+		tokeniser.tokeniseToSpans( "qzxValue" ).isKnown( 0 ), 
+		is( true ));
+    }
+    
+    @Test
+    public void affixReloadTest() {
+        IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+        IdentifierNameTokeniser tokeniser = factory.create();
+	assertThat("Word with an unknown prefix not split", 
+		tokeniser.tokenise( "qzxvalue" ), 
+		contains( "qzx", "value" ));
+        
+        factory.setPrefixDictionarySource( Arrays.asList( "qzx" ) );
+	assertThat("Existing tokeniser did not see the replacement prefixes", 
+		tokeniser.tokenise( "qzxvalue" ), 
+		contains( "qzxvalue" ));
+    }
+    
+    @Test
+    public void dictionaryUpdateTest() throws IOException {
+        IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+        IdentifierNameTokeniser tokeniser = factory.create();
+        factory.updateDictionaries( Arrays.asList( "qzx" ), Collections.emptyList() );
+	assertThat("Added word not recognised", 
+		tokeniser.tokeniseToSpans( "qzxValue" ).isKnown( 0 ), 
+		is( true ));
+        
+        factory.compactDictionaryUpdates().join();
+	assertThat("Added word lost by compaction", 
+		tokeniser.tokeniseWithOrigins( "qzxValue" ).get( 0 ).wordLists(), 
+		contains( "update" ));
+        
+        factory.updateDictionaries( Collections.emptyList(), Arrays.asList( "qzx", "value" ) );
+	TokenSpans spans = tokeniser.tokeniseToSpans( "qzxValue" );
+	assertThat("Removed words recognised", 
+		spans.isKnown( 0 ) || spans.isKnown( 1 ), 
+		is( false ));
+        
+        factory.compactDictionaryUpdates().join();
+	spans = tokeniser.tokeniseToSpans( "qzxValue" );
+	assertThat("Removed words recognised after compaction", 
+		spans.isKnown( 0 ) || spans.isKnown( 1 ), 
+		is( false ));
+        
+        factory.updateDictionaries( Arrays.asList( "value" ), Collections.emptyList() );
+        factory.compactDictionaryUpdates().join();
+	assertThat("Word added again after compacted removal not recognised", 
+		tokeniser.tokeniseToSpans( "qzxValue" ).isKnown( 1 ), 
+		is( true ));
+        
+        factory.updateDictionaries( Collections.emptyList(), Arrays.asList( "value" ) );
+        factory.compactDictionaryUpdates().join();
+        factory.setMainDictionarySource( new BufferedReader( new StringReader( "value\n" ) ) );
+	assertThat("Compacted removal applied to a replacement main dictionary", 
+		tokeniser.tokeniseToSpans( "qzxValue" ).isKnown( 1 ), 
+		is( true ));
+    }
+    
+    @Test
+    public void rewritingSplitTest() {
+        IdentifierNameTokeniser tokeniser = new IdentifierNameTokeniserFactory().create();
+        // a split whose second token is not a substring of the word
+        tokeniser.setSplitter( word -> Arrays.asList( 
+                word.substring( 0, 3 ), word.substring( 3 ).toUpperCase() ) );
+        
+	TokenSpans spans = tokeniser.tokeniseToSpans( "getvalue" );
+	assertThat("Span tokens are not ranges of the name", 
+		spans.tokens(), 
+		contains( "get", "value" ));
+	assertThat("Span boundaries are not in the name", 
+		spans.end( 1 ), 
+		is( 8 ));
+        
+	char[] text = "getvalueputvalue".toCharArray();
+	PackedTokens packed = tokeniser.tokenise( text, new int[] { 0, 8, 16 } );
+	assertThat("Packed tokens of the first name are not ranges of the text", 
+		packed.tokens( 0 ), 
+		contains( "get", "value" ));
+	assertThat("Packed tokens of the second name are not ranges of the text", 
+		packed.tokens( 1 ), 
+		contains( "put", "value" ));
+    }
 }
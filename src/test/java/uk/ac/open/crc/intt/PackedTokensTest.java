@@ -0,0 +1,96 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.nio.CharBuffer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests that batch tokenisation of packed names agrees with the
+ * tokenisation of individual names.
+ *
+ */
+public class PackedTokensTest {
+
+    private static IdentifierNameTokeniser tokeniser;
+
+    private static final String[] NAMES = {
+        "HTMLEditorKit", "get_MD5Hash", "$$value", "thenewestone",
+        "isXpp3Dom", "HELLO__WORLD", "x", "" };
+
+    private static char[] text;
+    private static int[] offsets;
+
+    @BeforeClass
+    public static void setUp() {
+	tokeniser = new IdentifierNameTokeniserFactory().create();
+	StringBuilder builder = new StringBuilder();
+	offsets = new int[NAMES.length + 1];
+	for ( int i = 0; i < NAMES.length; i++ ) {
+	    builder.append( NAMES[i] );
+	    offsets[i + 1] = builder.length();
+	}
+	text = builder.toString().toCharArray();
+    }
+
+    @Test
+    public void packedArrayTest() {
+	PackedTokens packed = tokeniser.tokenise( text, offsets );
+
+	assertThat( packed.identifierCount(), is( NAMES.length ) );
+	for ( int i = 0; i < NAMES.length; i++ ) {
+	    TokenSpans spans = tokeniser.tokeniseToSpans( NAMES[i] );
+	    assertThat( NAMES[i], packed.tokens( i ), is( equalTo( spans.tokens() ) ) );
+	    int first = packed.firstToken( i );
+	    for ( int j = 0; j < spans.size(); j++ ) {
+		assertThat( packed.start( first + j ), is( offsets[i] + spans.start( j ) ) );
+		assertThat( packed.flags( first + j ), is( spans.flags( j ) ) );
+	    }
+	}
+	assertThat( packed.firstToken( NAMES.length ), is( packed.tokenCount() ) );
+    }
+
+    @Test
+    public void packedBufferTest() {
+	char[] padded = new char[text.length + 3];
+	System.arraycopy( text, 0, padded, 3, text.length );
+	CharBuffer buffer = CharBuffer.wrap( padded );
+	buffer.position( 3 );
+	PackedTokens expected = tokeniser.tokenise( text, offsets );
+	PackedTokens packed = new PackedTokens();
+	tokeniser.tokenise( buffer, offsets, packed );
+
+	assertThat( buffer.position(), is( 3 ) );
+	assertThat( packed.tokenCount(), is( expected.tokenCount() ) );
+	for ( int i = 0; i < NAMES.length; i++ ) {
+	    assertThat( packed.tokens( i ), is( equalTo( expected.tokens( i ) ) ) );
+	}
+	
+	tokeniser.tokenise( buffer.asReadOnlyBuffer(), offsets, packed );
+	assertThat( packed.tokens( 0 ), is( equalTo( expected.tokens( 0 ) ) ) );
+	assertThat( packed.start( 0 ), is( 0 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void invalidOffsetsTest() {
+	tokeniser.tokenise( text, new int[] { 0, text.length + 1 } );
+    }
+}
@@ -0,0 +1,168 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the project vocabulary snapshots, buffered additions and the 
+ * vocabularies of projects.
+ *
+ */
+public class ProjectVocabularyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotRoundTripTest() throws IOException {
+	ProjectVocabulary vocabulary = new ProjectVocabulary();
+	vocabulary.add( "Xpp" );
+	vocabulary.add( "xpp" );
+	vocabulary.add( "getFoo", 3, 6 );
+	Path first = folder.newFile( "first.vocabulary" ).toPath();
+	vocabulary.save( first );
+
+	ProjectVocabulary restored = ProjectVocabulary.load( first );
+	Path second = folder.newFile( "second.vocabulary" ).toPath();
+	restored.save( second );
+
+	assertThat( restored.isWord( "XPP" ), is( true ) );
+	assertThat( restored.isWord( "foo" ), is( true ) );
+	assertThat( restored.size(), is( 2 ) );
+	assertThat( restored.maximumWordLength(), is( 3 ) );
+	assertThat( Files.readAllBytes( second ), 
+		is( equalTo( Files.readAllBytes( first ) ) ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void notASnapshotTest() throws IOException {
+	Path path = folder.newFile( "words.txt" ).toPath();
+	Files.write( path, "xpp\n".getBytes( "UTF-8" ) );
+
+	ProjectVocabulary.load( path );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void frozenSnapshotTest() {
+	ProjectVocabulary vocabulary = new ProjectVocabulary();
+	vocabulary.add( "xpp" );
+	ProjectVocabulary snapshot = vocabulary.snapshot();
+	assertThat( snapshot.isWord( "XPP" ), is( true ) );
+
+	snapshot.add( "foo" );
+    }
+
+    @Test
+    public void factorySnapshotTest() throws IOException {
+	IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+	factory.setProjectVocabularyThreshold( 2 );
+	factory.create().tokenise( "isXpp3Dom" );
+	Path snapshot = folder.newFile( "project.vocabulary" ).toPath();
+	factory.saveProjectVocabulary( snapshot );
+
+	IdentifierNameTokeniserFactory warm = new IdentifierNameTokeniserFactory();
+	warm.setProjectVocabularySnapshot( snapshot );
+	warm.create();
+
+	Path copy = folder.newFile( "copy.vocabulary" ).toPath();
+	warm.saveProjectVocabulary( copy );
+	assertThat( Files.readAllBytes( copy ), is( equalTo( Files.readAllBytes( snapshot ) ) ) );
+    }
+
+    @Test
+    public void markKnownTest() {
+	ProjectVocabulary vocabulary = new ProjectVocabulary();
+	vocabulary.add( "xpp" );
+	vocabulary.add( "qz" );
+	List<String> tokens = Arrays.asList( "XPP", "foo", "qz", "bar" );
+	BitSet known = new BitSet();
+	known.set( 3 );
+
+	assertThat( vocabulary.markKnown( tokens, known ), is( 2 ) );
+	assertThat( known.toString(), is( "{0, 2, 3}" ) );
+	assertThat( vocabulary.percentageKnown( tokens ), is( 50 ) );
+	assertThat( vocabulary.weightedPercentageKnownA( tokens ), is( 26 ) );
+    }
+
+    @Test
+    public void bufferedAdditionTest() {
+	ProjectVocabulary vocabulary = new ProjectVocabulary();
+	VocabularyBuffer buffer = new VocabularyBuffer( 3, Long.MAX_VALUE );
+	buffer.add( "isXppDom", 2, 5 );
+	buffer.add( "isXppDom", 5, 8 );
+	assertThat( buffer.isDue(), is( false ) );
+	assertThat( vocabulary.isWord( "xpp" ), is( false ) );
+
+	buffer.add( "qrs", 0, 3 );
+	assertThat( buffer.isDue(), is( true ) );
+	buffer.flushTo( vocabulary );
+	assertThat( buffer.size(), is( 0 ) );
+	assertThat( vocabulary.isWord( "xpp" ), is( true ) );
+	assertThat( vocabulary.isWord( "dom" ), is( true ) );
+	assertThat( vocabulary.isWord( "QRS" ), is( true ) );
+	assertThat( vocabulary.size(), is( 3 ) );
+
+	VocabularyBuffer immediate = new VocabularyBuffer( 100, 0 );
+	immediate.add( "tuv", 0, 3 );
+	assertThat( immediate.isDue(), is( true ) );
+    }
+
+    @Test
+    public void projectVocabulariesTest() {
+	IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+	factory.setProjectVocabularyThreshold( 2 );
+	IdentifierNameTokeniser first = factory.createForProject( "first" );
+	IdentifierNameTokeniser second = factory.createForProject( "second" );
+	first.tokenise( "zorkPlugh" );
+	assertThat( first.tokenise( "zorkplugh" ), contains( "zork", "plugh" ) );
+	assertThat( second.tokenise( "zorkplugh" ), not( contains( "zork", "plugh" ) ) );
+	assertThat( factory.create().tokenise( "zorkplugh" ), not( contains( "zork", "plugh" ) ) );
+
+	assertThat( factory.releaseProject( "first" ), is( true ) );
+	assertThat( factory.releaseProject( "first" ), is( false ) );
+    }
+
+    @Test
+    public void idleProjectTest() {
+	ProjectVocabularies vocabularies = new ProjectVocabularies();
+	ProjectVocabulary first = vocabularies.get( "first", ProjectVocabulary::new );
+	assertThat( vocabularies.get( "first", ProjectVocabulary::new ), is( sameInstance( first ) ) );
+	vocabularies.get( "second", ProjectVocabulary::new );
+	assertThat( vocabularies.size(), is( 2 ) );
+
+	vocabularies.setIdleTimeout( 0 );
+	vocabularies.get( "third", ProjectVocabulary::new );
+	assertThat( vocabularies.size(), is( 1 ) );
+	// still referenced, so the idle vocabulary is reattached
+	assertThat( vocabularies.get( "first", ProjectVocabulary::new ), is( sameInstance( first ) ) );
+
+	assertThat( vocabularies.remove( "first" ), is( true ) );
+	assertThat( vocabularies.get( "first", ProjectVocabulary::new ), is( not( sameInstance( first ) ) ) );
+    }
+}
@@ -0,0 +1,83 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the assignment of ids by {@code TokenIdTable}.
+ *
+ */
+public class TokenIdTableTest {
+
+    @Test
+    public void seedIdsTest() {
+	TokenIdTable table = new TokenIdTable( Arrays.asList( "value", "Get", "max" ) );
+
+	assertThat( table.seedCount(), is( 3 ) );
+	assertThat( table.id( "get" ), is( 0 ) );
+	assertThat( table.id( "MAX" ), is( 1 ) );
+	assertThat( table.id( "getValue", 3, 8 ), is( 2 ) );
+	assertThat( table.find( "xyzzy" ), is( -1 ) );
+	assertThat( table.id( "Xyzzy" ), is( 3 ) );
+	assertThat( table.id( "xyzzy" ), is( 3 ) );
+	assertThat( table.token( 3 ), is( "xyzzy" ) );
+	assertThat( table.size(), is( 4 ) );
+    }
+
+    @Test
+    public void saveAndLoadTest() throws IOException {
+	TokenIdTable table = new TokenIdTable( Arrays.asList( "get", "value" ) );
+	table.id( "foo" );
+	table.id( "bar" );
+	Path path = Files.createTempFile( "intt", ".ids" );
+	try {
+	    table.save( path );
+	    TokenIdTable loaded = TokenIdTable.load( path );
+
+	    assertThat( loaded.seedCount(), is( 2 ) );
+	    assertThat( loaded.size(), is( 4 ) );
+	    assertThat( loaded.find( "value" ), is( 1 ) );
+	    assertThat( loaded.find( "bar" ), is( 3 ) );
+	    assertThat( loaded.id( "baz" ), is( 4 ) );
+	}
+	finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test
+    public void tokeniserTest() {
+	IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+	TokenIdTable table = factory.createTokenIdTable();
+	IdentifierNameTokeniser tokeniser = factory.create();
+
+	int[] ids = tokeniser.tokeniseToIds( "getMaxValue", table );
+
+	assertThat( ids.length, is( 3 ) );
+	assertThat( ids[0], is( lessThan( table.seedCount() ) ) );
+	assertThat( table.token( ids[1] ), is( "max" ) );
+	assertThat( tokeniser.tokeniseToIds( "GET_VALUE", table )[1], is( ids[2] ) );
+    }
+}
@@ -0,0 +1,67 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the sharing of token instances by {@code TokenPool}.
+ *
+ */
+public class TokenPoolTest {
+
+    @Test
+    public void seedTest() {
+	String get = "get";
+	TokenPool pool = new TokenPool( 16, Arrays.asList( get, "name", "get" ) );
+
+	assertThat( pool.seedCount(), is( 2 ) );
+	assertThat( pool.intern( new String( "get" ) ), is( sameInstance( get ) ) );
+	assertThat( pool.intern( "getName", 0, 3 ), is( sameInstance( get ) ) );
+	assertThat( pool.intern( "Get" ), is( not( sameInstance( get ) ) ) );
+    }
+
+    @Test
+    public void cacheTest() {
+	TokenPool pool = new TokenPool( 16 );
+	String first = pool.intern( "xmlFoo", 3, 6 );
+
+	assertThat( first, is( "Foo" ) );
+	assertThat( pool.intern( new StringBuilder( "Foo" ), 0, 3 ), is( sameInstance( first ) ) );
+	assertThat( pool.intern( new String( "Foo" ) ), is( sameInstance( first ) ) );
+    }
+
+    @Test
+    public void tokeniserTest() {
+	IdentifierNameTokeniserFactory factory = new IdentifierNameTokeniserFactory();
+	factory.setTokenPoolingOn( 1024 );
+	IdentifierNameTokeniser first = factory.create();
+	IdentifierNameTokeniser second = factory.create();
+
+	List<String> tokens = first.tokenise( "getMaxValue" );
+	List<String> otherTokens = second.tokenise( "setMaxValue" );
+
+	assertThat( tokens, contains( "get", "Max", "Value" ) );
+	assertThat( otherTokens.get( 1 ), is( sameInstance( tokens.get( 1 ) ) ) );
+	assertThat( first.tokenise( "get_value" ).get( 0 ), is( sameInstance( tokens.get( 0 ) ) ) );
+    }
+}
@@ -0,0 +1,85 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests that the spans returned by the tokeniser agree with the lists
+ * of tokens.
+ *
+ */
+public class TokenSpansTest {
+
+    private static IdentifierNameTokeniser tokeniser;
+
+    private static final String[] NAMES = {
+        "HTMLEditorKit", "get_MD5Hash", "$$value", "thenewestone",
+        "isXpp3Dom", "HELLO__WORLD", "x", "" };
+
+    @BeforeClass
+    public static void setUp() {
+	tokeniser = new IdentifierNameTokeniserFactory().create();
+    }
+
+    @Test
+    public void spansMatchTokensTest() {
+	for ( String name : NAMES ) {
+	    assertThat( name,
+		    tokeniser.tokeniseToSpans( name ).tokens(),
+		    is( equalTo( tokeniser.tokenise( name ) ) ) );
+	}
+    }
+
+    @Test
+    public void naiveSpansMatchTokensTest() {
+	for ( String name : NAMES ) {
+	    assertThat( name,
+		    tokeniser.naiveTokenisationToSpans( name ).tokens(),
+		    is( equalTo( tokeniser.naiveTokenisation( name ) ) ) );
+	}
+    }
+
+    @Test
+    public void sinkMatchesTokensTest() {
+	for ( String name : NAMES ) {
+	    List<String> tokens = new ArrayList<>();
+	    tokeniser.tokenise( name,
+		    ( source, start, end, flags ) ->
+			    tokens.add( source.subSequence( start, end ).toString() ) );
+	    assertThat( name, tokens, is( equalTo( tokeniser.tokenise( name ) ) ) );
+	}
+    }
+
+    @Test
+    public void flagsTest() {
+	TokenSpans spans = tokeniser.tokeniseToSpans( "getMD5Hash" );
+
+	assertThat( spans.size(), is( 3 ) );
+	assertThat( spans.start( 1 ), is( 3 ) );
+	assertThat( spans.end( 1 ), is( 6 ) );
+	assertThat( spans.isKnown( 0 ), is( true ) );
+	assertThat( spans.containsDigit( 0 ), is( false ) );
+	assertThat( spans.containsDigit( 1 ), is( true ) );
+    }
+}
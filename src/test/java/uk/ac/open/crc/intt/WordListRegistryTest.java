@@ -0,0 +1,97 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+import uk.ac.open.crc.intt.text.WordList;
+
+import nu.floss.wordlists.Wordlists;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests the sharing of word lists between dictionary configurations.
+ *
+ */
+public class WordListRegistryTest {
+
+    @Test
+    public void referenceCountTest() throws IOException {
+	int before = WordListRegistry.references( Wordlists.TECHNICAL );
+
+	List<WordList> first = WordListRegistry.acquire( Wordlists.SCOWL_RUDE, Wordlists.TECHNICAL );
+	List<WordList> second = WordListRegistry.acquire( Wordlists.TECHNICAL );
+
+	assertThat( second.get( 0 ), is( sameInstance( first.get( 1 ) ) ) );
+	assertThat( WordListRegistry.references( Wordlists.TECHNICAL ), is( before + 2 ) );
+
+	WordListRegistry.release( Wordlists.SCOWL_RUDE, Wordlists.TECHNICAL );
+	WordListRegistry.release( Wordlists.TECHNICAL );
+
+	assertThat( WordListRegistry.references( Wordlists.TECHNICAL ), is( before ) );
+	assertThat( WordListRegistry.isLoaded( Wordlists.TECHNICAL ), is( before > 0 ) );
+    }
+
+    @Test
+    public void concurrentAcquireTest() throws IOException {
+	int before = WordListRegistry.references( Wordlists.SCOWL_RUDE );
+
+	// both calls may find the list missing, but it is loaded once
+	CompletableFuture<List<WordList>> other = CompletableFuture.supplyAsync( () -> {
+	    try {
+		return WordListRegistry.acquire( Wordlists.SCOWL_RUDE );
+	    }
+	    catch ( IOException e ) {
+		throw new UncheckedIOException( e );
+	    }
+	} );
+	List<WordList> first = WordListRegistry.acquire( Wordlists.SCOWL_RUDE );
+
+	assertThat( other.join().get( 0 ), is( sameInstance( first.get( 0 ) ) ) );
+	assertThat( WordListRegistry.references( Wordlists.SCOWL_RUDE ), is( before + 2 ) );
+
+	WordListRegistry.release( Wordlists.SCOWL_RUDE, Wordlists.SCOWL_RUDE );
+	assertThat( WordListRegistry.references( Wordlists.SCOWL_RUDE ), is( before ) );
+    }
+
+    @Test
+    public void configurationsShareListsTest() {
+	IdentifierNameTokeniserFactory german = 
+		new IdentifierNameTokeniserFactory( DictionaryConfiguration.GERMAN );
+	IdentifierNameTokeniserFactory combined = 
+		new IdentifierNameTokeniserFactory( DictionaryConfiguration.COMBINED );
+	german.create();
+	combined.create();
+
+	int held = WordListRegistry.references( Wordlists.GERMAN_DE_50K );
+	assertThat( held, is( greaterThanOrEqualTo( 2 ) ) );
+
+	german.release();
+	combined.release();
+
+	// the lists are loaded again when a released configuration is needed
+	IdentifierNameTokeniser tokeniser = 
+		new IdentifierNameTokeniserFactory( DictionaryConfiguration.GERMAN ).create();
+	assertThat( tokeniser.tokenise( "etwaseinfaches" ), contains( "etwas", "einfaches" ) );
+	assertThat( WordListRegistry.isLoaded( Wordlists.GERMAN_DE_50K ), is( true ) );
+    }
+}
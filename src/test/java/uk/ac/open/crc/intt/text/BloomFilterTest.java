@@ -0,0 +1,66 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the blocked Bloom filter used in front of dictionary lookups.
+ *
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void noFalseNegativesTest() {
+	BloomFilter filter = new BloomFilter( 10000, 0.01, 1 << 20 );
+	for ( int i = 0; i < 10000; i++ ) {
+	    filter.add( "word" + i );
+	}
+
+	for ( int i = 0; i < 10000; i++ ) {
+	    assertThat( filter.mightContain( "WORD" + i ), is( true ) );
+	}
+	assertThat( filter.mightContain( "xWord12x", 1, 7 ), is( true ) );
+    }
+
+    @Test
+    public void falsePositiveRateTest() {
+	BloomFilter filter = new BloomFilter( 10000, 0.01, 1 << 20 );
+	for ( int i = 0; i < 10000; i++ ) {
+	    filter.add( "word" + i );
+	}
+
+	int positives = 0;
+	for ( int i = 0; i < 10000; i++ ) {
+	    if ( filter.mightContain( "other" + i ) ) {
+		positives++;
+	    }
+	}
+	assertThat( positives, is( lessThan( 300 ) ) );
+    }
+
+    @Test
+    public void memoryBudgetTest() {
+	BloomFilter filter = new BloomFilter( 1000000, 0.001, 4096 );
+
+	assertThat( filter.byteSize(), is( lessThanOrEqualTo( 4096L ) ) );
+	assertThat( filter.hashCount(), is( greaterThanOrEqualTo( 1 ) ) );
+    }
+}
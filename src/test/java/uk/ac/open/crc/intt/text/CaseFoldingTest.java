@@ -0,0 +1,61 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import java.util.Arrays;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests that case folding is independent of the default locale.
+ *
+ */
+public class CaseFoldingTest {
+
+    @Test
+    public void asciiFoldingTest() {
+	String folded = "htmleditorkit_2";
+
+	assertThat( CaseFolding.fold( "HTMLEditorKit_2" ), is( folded ) );
+	assertThat( CaseFolding.fold( folded ), is( sameInstance( folded ) ) );
+	assertThat( CaseFolding.hash( "GetName", 3, 7 ),
+		is( CaseFolding.hash( "name", 0, 4 ) ) );
+	assertThat( CaseFolding.matches( "name", "GetName", 3, 7 ), is( true ) );
+    }
+
+    @Test
+    public void turkishLocaleTest() {
+	Locale defaultLocale = Locale.getDefault();
+	try {
+	    Locale.setDefault( new Locale( "tr", "TR" ) );
+	    WordSet set = new WordSet( Arrays.asList( "FILE", "index" ) );
+
+	    assertThat( CaseFolding.fold( "FILE" ), is( "file" ) );
+	    assertThat( set.contains( "file" ), is( true ) );
+	    assertThat( set.contains( "INDEX" ), is( true ) );
+	    // the dotted and dotless i fold to i
+	    assertThat( set.contains( "F\u0130LE" ), is( true ) );
+	    assertThat( set.contains( "f\u0131le" ), is( true ) );
+	}
+	finally {
+	    Locale.setDefault( defaultLocale );
+	}
+    }
+}
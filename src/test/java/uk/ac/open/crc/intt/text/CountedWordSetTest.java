@@ -0,0 +1,77 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the bounded, counting word set used by the project vocabulary.
+ *
+ */
+public class CountedWordSetTest {
+
+    @Test
+    public void countTest() {
+	CountedWordSet set = new CountedWordSet( 16 );
+
+	assertThat( set.add( "Editor" ), is( true ) );
+	assertThat( set.add( "xEDITORx", 1, 7 ), is( false ) );
+	assertThat( set.count( "editor" ), is( 2 ) );
+	assertThat( set.contains( "EdItOr" ), is( true ) );
+	assertThat( set.count( "kit" ), is( 0 ) );
+    }
+
+    @Test
+    public void frequentWordsSurviveTest() {
+	CountedWordSet set = new CountedWordSet( 16 );
+	set.setBounds( 100, Long.MAX_VALUE, 0 );
+
+	for ( int i = 0; i < 1000; i++ ) {
+	    set.add( "frequent" );
+	    set.add( "word" + i );
+	}
+
+	assertThat( set.size(), is( 100 ) );
+	assertThat( set.evictions(), is( 901L ) );
+	assertThat( set.contains( "frequent" ), is( true ) );
+	assertThat( set.contains( "word999" ), is( true ) );
+	assertThat( set.contains( "word0" ), is( false ) );
+    }
+
+    @Test
+    public void evictionKeepsLookupsConsistentTest() {
+	CountedWordSet set = new CountedWordSet( 16 );
+	set.setBounds( 1000, 50000, 64 );
+
+	for ( int i = 0; i < 20000; i++ ) {
+	    set.add( "w" + ( i * 7919 % 5000 ) );
+	}
+
+	Set<String> members = new HashSet<>();
+	set.forEach( members::add );
+	assertThat( members.size(), is( set.size() ) );
+	assertThat( set.byteSize(), is( lessThanOrEqualTo( 50000L ) ) );
+	for ( int i = 0; i < 5000; i++ ) {
+	    assertThat( set.contains( "w" + i ), is( members.contains( "w" + i ) ) );
+	}
+    }
+}
@@ -0,0 +1,73 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the perfect hash lookups of {@code StaticWordSet}.
+ *
+ */
+public class StaticWordSetTest {
+
+    @Test
+    public void lookupTest() {
+	StaticWordSet set = new StaticWordSet( Arrays.asList( "HTML", "editor", "Kit", "html" ) );
+	String name = "HTMLEditorKit";
+
+	assertThat( set.size(), is( 3 ) );
+	assertThat( set.maximumLength(), is( 6 ) );
+	assertThat( set.contains( "kIT" ), is( true ) );
+	assertThat( set.contains( "edit" ), is( false ) );
+	assertThat( set.contains( name, 4, 10 ), is( true ) );
+	assertThat( set.contains( name, 3, 10 ), is( false ) );
+	assertThat( set.contains( new StringBuilder( name ), 10, 13 ), is( true ) );
+    }
+
+    @Test
+    public void everyEntryFoundTest() {
+	List<String> words = new ArrayList<>();
+	for ( int i = 0; i < 500; i++ ) {
+	    words.add( "Word" + i );
+	}
+	StaticWordSet set = new StaticWordSet( words );
+	List<String> entries = new ArrayList<>();
+	set.forEach( entries::add );
+
+	assertThat( set.size(), is( 500 ) );
+	for ( String word : words ) {
+	    assertThat( set.contains( word ), is( true ) );
+	    assertThat( entries, hasItem( word.toLowerCase() ) );
+	}
+	assertThat( set.contains( "word500" ), is( false ) );
+    }
+
+    @Test
+    public void emptySetTest() {
+	StaticWordSet set = new StaticWordSet( Collections.emptyList() );
+
+	assertThat( set.isEmpty(), is( true ) );
+	assertThat( set.contains( "" ), is( false ) );
+    }
+}
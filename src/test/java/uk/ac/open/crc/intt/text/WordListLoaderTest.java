@@ -0,0 +1,83 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for loading word lists from plain and compressed files.
+ *
+ */
+public class WordListLoaderTest {
+
+    private static final String CONTENT =
+	    "\uFEFF# a comment\n"
+	    + "Editor\r\n"
+	    + "  kit  # trailing comment\n"
+	    + "\n"
+	    + "EDITOR\n"
+	    + "html";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void plainFileTest() throws IOException {
+	Path path = folder.newFile( "domain.txt" ).toPath();
+	Files.write( path, CONTENT.getBytes( StandardCharsets.UTF_8 ) );
+
+	WordList list = WordListLoader.load( path );
+
+	assertThat( list.tag(), is( "domain" ) );
+	assertThat( list.size(), is( 3 ) );
+	assertThat( list.isWord( "editor" ), is( true ) );
+	assertThat( list.isWord( "KIT" ), is( true ) );
+	assertThat( list.isWord( "html" ), is( true ) );
+	assertThat( list.isWord( "comment" ), is( false ) );
+    }
+
+    @Test
+    public void compressedFileTest() throws IOException {
+	Path plain = folder.newFile( "plain.txt" ).toPath();
+	Files.write( plain, CONTENT.getBytes( StandardCharsets.UTF_8 ) );
+	Path compressed = folder.newFile( "compressed.txt.gz" ).toPath();
+	try ( OutputStream out = new GZIPOutputStream( Files.newOutputStream( compressed ) ) ) {
+	    out.write( CONTENT.getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	List<WordList> lists = WordListLoader.load( Arrays.asList( plain, compressed ) );
+
+	assertThat( lists.size(), is( 2 ) );
+	assertThat( lists.get( 0 ).tag(), is( "plain" ) );
+	assertThat( lists.get( 1 ).tag(), is( "compressed" ) );
+	assertThat( lists.get( 1 ).size(), is( 3 ) );
+	assertThat( lists.get( 1 ).isWord( "Kit" ), is( true ) );
+    }
+}
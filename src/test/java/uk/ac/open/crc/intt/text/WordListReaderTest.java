@@ -17,6 +17,7 @@
 
 package uk.ac.open.crc.intt.text;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Test;
 import org.junit.Ignore;
@@ -55,4 +56,25 @@ public class WordListReaderTest {
 	assertThat(abbreviations, not(empty()));
 	
     }
+    
+    @Test
+    public void streamingReadTest() {
+	List<String> words = new ArrayList<>();
+	WordListReader.forEachWord( "abbreviations.txt", words::add );
+	
+	assertThat( words, is( equalTo( new WordListReader( "abbreviations.txt" ).asList() ) ) );
+	
+	WordSet set = WordListReader.readWordSet( "abbreviations.txt" );
+	assertThat( set.isEmpty(), is( false ) );
+	assertThat( set.contains( words.get( 0 ).toUpperCase() ), is( true ) );
+    }
+    
+    @Test
+    public void parseTest() {
+	List<String> words = new ArrayList<>();
+	WordListReader.parse( "# comment\r\n  alpha # note\n\n#beta\ngamma", 
+		( text, start, end ) -> words.add( text.subSequence( start, end ).toString() ) );
+	
+	assertThat( words, contains( "alpha", "gamma" ) );
+    }
 }
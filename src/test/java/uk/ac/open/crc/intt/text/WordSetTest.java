@@ -0,0 +1,64 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the case insensitive range lookups of {@code WordSet}.
+ *
+ */
+public class WordSetTest {
+
+    @Test
+    public void caseInsensitiveLookupTest() {
+	WordSet set = new WordSet( Arrays.asList( "HTML", "editor", "Kit" ) );
+
+	assertThat( set.size(), is( 3 ) );
+	assertThat( set.contains( "html" ), is( true ) );
+	assertThat( set.contains( "EDITOR" ), is( true ) );
+	assertThat( set.contains( "kIT" ), is( true ) );
+	assertThat( set.contains( "edit" ), is( false ) );
+    }
+
+    @Test
+    public void rangeLookupTest() {
+	WordSet set = new WordSet( Arrays.asList( "html", "editor", "kit" ) );
+	String name = "HTMLEditorKit";
+
+	assertThat( set.contains( name, 0, 4 ), is( true ) );
+	assertThat( set.contains( name, 4, 10 ), is( true ) );
+	assertThat( set.contains( name, 10, 13 ), is( true ) );
+	assertThat( set.contains( name, 3, 10 ), is( false ) );
+	assertThat( set.contains( new StringBuilder( name ), 10, 13 ), is( true ) );
+    }
+
+    @Test
+    public void growthTest() {
+	WordSet set = new WordSet();
+	for ( int i = 0; i < 1000; i++ ) {
+	    assertThat( set.add( "word" + i ), is( true ) );
+	}
+	assertThat( set.add( "WORD7" ), is( false ) );
+	assertThat( set.size(), is( 1000 ) );
+	assertThat( set.contains( "Word999" ), is( true ) );
+    }
+}
@@ -0,0 +1,58 @@
+/*
+    Copyright (C) 2026 Simon Butler
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+
+package uk.ac.open.crc.intt.text;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests for the statistics used to reject impossible words.
+ *
+ */
+public class WordStatisticsTest {
+
+    @Test
+    public void statisticsTest() {
+	WordStatistics statistics = new WordStatistics();
+	statistics.add( "Editor" );
+	statistics.add( "kit" );
+	statistics.add( "xHTMLx", 1, 5 );
+
+	assertThat( statistics.maximumLength(), is( 6 ) );
+	assertThat( statistics.hasLength( 3 ), is( true ) );
+	assertThat( statistics.hasLength( 5 ), is( false ) );
+	assertThat( statistics.hasLength( 70 ), is( false ) );
+	assertThat( statistics.mightStartWith( 'E', 'D' ), is( true ) );
+	assertThat( statistics.mightEndWith( 'm', 'l' ), is( true ) );
+	assertThat( statistics.mightStartWith( 'i', 't' ), is( false ) );
+    }
+
+    @Test
+    public void mightContainTest() {
+	WordStatistics statistics = new WordStatistics();
+	statistics.add( "editor" );
+	statistics.add( "kit" );
+
+	assertThat( statistics.mightContain( "HTMLEditorKit", 4, 10 ), is( true ) );
+	assertThat( statistics.mightContain( "HTMLEditorKit", 10, 13 ), is( true ) );
+	// "tor" has the right length, but no word starts with "to"
+	assertThat( statistics.mightContain( "HTMLEditorKit", 7, 10 ), is( false ) );
+	assertThat( statistics.mightContain( "HTMLEditorKit", 0, 13 ), is( false ) );
+    }
+}